@@ -0,0 +1,50 @@
+package com.labs.wishlistservice.benchmarks;
+
+import com.labs.wishlistservice.infra.AdmissionControl;
+import com.labs.wishlistservice.infra.WishlistMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead added to each request by admission control: the global check plus the customer check, with limits high
+ * enough that every request is admitted. {@code contended} runs on all cores against the same counters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdmissionControlBenchmark {
+
+    private AdmissionControl admissionControl;
+    private String[] customers;
+
+    @Setup
+    public void setUp() {
+        admissionControl = new AdmissionControl(new WishlistMetrics(new SimpleMeterRegistry()),
+                1_000_000_000, 1_000_000, 1_000_000_000, 1_000_000);
+        customers = new String[10_000];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = "customer-" + i;
+        }
+    }
+
+    @Benchmark
+    public long admit() {
+        return admissionControl.admitGlobal() + admissionControl.admitCustomer(customer());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long contended() {
+        return admissionControl.admitGlobal() + admissionControl.admitCustomer(customer());
+    }
+
+    private String customer() {
+        return customers[ThreadLocalRandom.current().nextInt(customers.length)];
+    }
+}
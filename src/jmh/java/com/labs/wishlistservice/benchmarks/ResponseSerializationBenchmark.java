@@ -0,0 +1,68 @@
+package com.labs.wishlistservice.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.dtos.WishlistDTO;
+import com.labs.wishlistservice.dtos.WishlistSearchResponse;
+import com.labs.wishlistservice.dtos.WishlistsResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the {@code {"wishlists": [...]}} bodies returned by
+ * {@code /wishlist/customer/{customerId}} (20 items at most) and {@code /wishlist/tags/{tag}} (unbounded),
+ * as typed response records and as the {@code Map.of("wishlists", ...)} bodies they replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "20", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter customerWriter;
+    private ObjectWriter tagsWriter;
+    private List<Wishlist> wishlists;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        customerWriter = objectMapper.writerFor(WishlistsResponse.class);
+        tagsWriter = objectMapper.writerFor(WishlistSearchResponse.class);
+        wishlists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wishlists.add(new Wishlist("customer-" + (i % 50), "product-" + i, "Eletrônicos Cozinha"));
+        }
+    }
+
+    @Benchmark
+    public byte[] customerResponse() throws JsonProcessingException {
+        return customerWriter.writeValueAsBytes(new WishlistsResponse(wishlists));
+    }
+
+    @Benchmark
+    public byte[] customerResponseMap() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Map.of("wishlists", wishlists.stream().map(WishlistDTO::from).toList()));
+    }
+
+    @Benchmark
+    public byte[] tagsResponse() throws JsonProcessingException {
+        return tagsWriter.writeValueAsBytes(new WishlistSearchResponse(wishlists));
+    }
+
+    @Benchmark
+    public byte[] tagsResponseMap() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Map.of("wishlists", wishlists));
+    }
+}
@@ -0,0 +1,63 @@
+package com.labs.wishlistservice.benchmarks;
+
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.dtos.WishlistDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request domain work: composite id, entity construction from the request body,
+ * DTO mapping for responses and tag tokenization for tag searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WishlistDomainBenchmark {
+
+    private String customerId;
+    private String productId;
+    private WishlistDTO dto;
+    private Wishlist wishlist;
+    private String tag;
+
+    @Setup
+    public void setUp() {
+        customerId = "4f8d2c1e-3b7a-4e59-9c0d-6a2b1f3e8d47";
+        productId = "SKU-000123456789";
+        dto = new WishlistDTO(customerId, productId, "Eletrônicos Cozinha");
+        wishlist = new Wishlist(dto);
+        tag = "Eletrônicos";
+    }
+
+    @Benchmark
+    public String generateCompositeId() {
+        return Wishlist.generateCompositeId(customerId, productId);
+    }
+
+    @Benchmark
+    public String generateCompactId() {
+        return WishlistKeyFormat.COMPACT.id(customerId, productId);
+    }
+
+    @Benchmark
+    public Wishlist wishlistFromDto() {
+        return new Wishlist(dto);
+    }
+
+    @Benchmark
+    public WishlistDTO dtoFromWishlist() {
+        return WishlistDTO.from(wishlist);
+    }
+
+    @Benchmark
+    public List<String> tokenizeTag() {
+        return TagTokenizer.tokenize(tag);
+    }
+}
@@ -0,0 +1,9 @@
+package com.labs.wishlistservice.loadtest;
+
+enum Endpoint {
+    SAVE,
+    DELETE,
+    CUSTOMER,
+    TAGS,
+    EXISTS
+}
@@ -0,0 +1,60 @@
+package com.labs.wishlistservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies recorded by a single client thread, so recording never contends; merged once the run is over.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1 << 14];
+    private int size;
+    private long errors;
+
+    void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    static Summary summarize(Iterable<LatencyRecorder> recorders, double seconds) {
+        int total = 0;
+        long errors = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.size;
+            errors += recorder.errors;
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(merged);
+        return new Summary(total, errors, total / seconds,
+                percentile(merged, 0.50), percentile(merged, 0.99), percentile(merged, 0.999), total == 0 ? 0 : merged[total - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    record Summary(int requests, long errors, double throughput, long p50, long p99, long p999, long max) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.labs.wishlistservice.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test knobs, read from system properties so they can be passed on the Maven command line:
+ * <ul>
+ *     <li>{@code loadtest.concurrency} – concurrent clients (default 64)</li>
+ *     <li>{@code loadtest.duration} – measured run length (default 30s)</li>
+ *     <li>{@code loadtest.warmup} – unmeasured run before it (default 5s)</li>
+ *     <li>{@code loadtest.customers} / {@code loadtest.products} – key space (default 2000 / 40)</li>
+ *     <li>{@code loadtest.mix} – weights per endpoint (default {@code save=20,delete=10,customer=45,tags=5,exists=20})</li>
+ * </ul>
+ */
+record LoadTestSettings(int concurrency,
+                        Duration duration,
+                        Duration warmup,
+                        int customers,
+                        int products,
+                        Map<Endpoint, Integer> mix) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.concurrency", 64),
+                Duration.parse("PT" + System.getProperty("loadtest.duration", "30s")),
+                Duration.parse("PT" + System.getProperty("loadtest.warmup", "5s")),
+                Integer.getInteger("loadtest.customers", 2000),
+                Integer.getInteger("loadtest.products", 40),
+                parseMix(System.getProperty("loadtest.mix", "save=20,delete=10,customer=45,tags=5,exists=20")));
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+        Map<Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,163 @@
+package com.labs.wishlistservice.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives a configurable mix of wishlist calls against the full application on an embedded mongod and
+ * prints throughput and p50/p99/p999 latency per endpoint. See {@link LoadTestSettings} for the knobs. The
+ * mongod starts empty, so the entity indexes are created on startup and the mix measures the indexed paths.
+ * <p>
+ * {@code ./mvnw -Ploadtest test -Dloadtest.concurrency=256 -Dspring.profiles.active=virtual}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "wishlist.indexes.create-on-startup=true")
+class WishlistLoadTest {
+
+    private static final String[] TAGS = {"Eletrônicos", "Cozinha", "Livros", "Games", "Casa Banho", "Esporte"};
+
+    private static final TransitionWalker.ReachedState<RunningMongodProcess> MONGOD = Mongod.instance().start(Version.Main.V6_0);
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        ServerAddress address = MONGOD.current().getServerAddress();
+        registry.add("spring.data.mongodb.uri", () -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/wishlist");
+    }
+
+    @AfterAll
+    static void stopMongod() {
+        MONGOD.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newCachedThreadPool())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void runMix() throws Exception {
+        run(settings.warmup());
+        Map<Endpoint, List<LatencyRecorder>> recorders = run(settings.duration());
+
+        double seconds = settings.duration().toMillis() / 1000.0;
+        long serverErrors = 0;
+        System.out.printf("%nconcurrency=%d duration=%s customers=%d products=%d mix=%s%n",
+                settings.concurrency(), settings.duration(), settings.customers(), settings.products(), settings.mix());
+        System.out.printf("%-9s %10s %8s %10s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        for (Map.Entry<Endpoint, List<LatencyRecorder>> entry : recorders.entrySet()) {
+            LatencyRecorder.Summary summary = LatencyRecorder.summarize(entry.getValue(), seconds);
+            serverErrors += summary.errors();
+            System.out.printf("%-9s %10d %8d %10.0f %10.2f %10.2f %10.2f %10.2f%n", entry.getKey().name().toLowerCase(),
+                    summary.requests(), summary.errors(), summary.throughput(),
+                    millis(summary.p50()), millis(summary.p99()), millis(summary.p999()), millis(summary.max()));
+        }
+
+        assertEquals(0, serverErrors, "requests failed with 5xx or I/O errors");
+    }
+
+    private Map<Endpoint, List<LatencyRecorder>> run(Duration duration) throws Exception {
+        Map<Endpoint, List<LatencyRecorder>> recorders = new EnumMap<>(Endpoint.class);
+        settings.mix().keySet().forEach(endpoint -> recorders.put(endpoint, new ArrayList<>()));
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            Map<Endpoint, LatencyRecorder> own = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : settings.mix().keySet()) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                own.put(endpoint, recorder);
+                recorders.get(endpoint).add(recorder);
+            }
+            futures.add(clients.submit(() -> {
+                drive(own, deadline);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+        return recorders;
+    }
+
+    private void drive(Map<Endpoint, LatencyRecorder> recorders, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = pick(random.nextInt(totalWeight));
+            HttpRequest request = request(endpoint, random);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                recorders.get(endpoint).record(System.nanoTime() - start);
+                if (response.statusCode() >= 500) {
+                    recorders.get(endpoint).error();
+                }
+            } catch (Exception e) {
+                recorders.get(endpoint).error();
+            }
+        }
+    }
+
+    private Endpoint pick(int ticket) {
+        for (Map.Entry<Endpoint, Integer> entry : settings.mix().entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("empty mix");
+    }
+
+    private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+        String customerId = "customer-" + random.nextInt(settings.customers());
+        String productId = "product-" + random.nextInt(settings.products());
+        String tag = TAGS[random.nextInt(TAGS.length)];
+        String body = "{\"customerId\":\"" + customerId + "\",\"productId\":\"" + productId + "\",\"tagsCategory\":\"" + tag + "\"}";
+
+        return switch (endpoint) {
+            case SAVE -> json("/wishlist").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            case DELETE -> json("/wishlist").method("DELETE", HttpRequest.BodyPublishers.ofString(body)).build();
+            case CUSTOMER -> get("/wishlist/customer/" + customerId);
+            case TAGS -> get("/wishlist/tags/" + tag.split(" ")[0].substring(0, 3) + "/page?size=50");
+            case EXISTS -> get("/wishlist/exists?customerId=" + customerId + "&productId=" + productId);
+        };
+    }
+
+    private HttpRequest.Builder json(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).header("Content-Type", "application/json");
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -1,9 +1,12 @@
 package com.labs.wishlistservice;
 
+import com.labs.wishlistservice.infra.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class WishlistServiceApplication {
 
     public static void main(String[] args) {
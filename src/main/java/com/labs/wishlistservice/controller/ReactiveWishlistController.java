@@ -0,0 +1,62 @@
+package com.labs.wishlistservice.controller;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.dtos.*;
+import com.labs.wishlistservice.service.ReactiveWishlistService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link WishlistController}, active with the {@code reactive} profile.
+ */
+@RestController
+@RequestMapping("/wishlist")
+@Profile("reactive")
+public class ReactiveWishlistController {
+
+    private ReactiveWishlistService wishlistService;
+
+    public ReactiveWishlistController(ReactiveWishlistService wishlistService) {
+        this.wishlistService = wishlistService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<MessageResponse>> save(@Valid @RequestBody WishlistDTO wishlist) {
+        return wishlistService.save(new Wishlist(wishlist))
+                .thenReturn(ResponseEntity.status(201).body(new MessageResponse("Wishlist save sucess")));
+    }
+
+    @DeleteMapping()
+    public Mono<ResponseEntity<MessageResponse>> delete(@Valid @RequestBody WishlistDTO wishlist) {
+        return wishlistService.delete(wishlist.customerId(), wishlist.productId())
+                .thenReturn(ResponseEntity.ok(new MessageResponse("Wishlist deleted successfully")));
+    }
+
+    @GetMapping("/customer/{customerId}")
+    public Mono<ResponseEntity<WishlistsResponse>> findAllCustomer(@PathVariable String customerId) {
+        return wishlistService.findAllCustomer(customerId)
+                .map(wishlists -> ResponseEntity.ok(new WishlistsResponse(wishlists)));
+    }
+
+    @GetMapping("/tags/{tag}")
+    public Mono<ResponseEntity<WishlistSearchResponse>> findByTagsCategory(@PathVariable String tag) {
+        return wishlistService.findByTagsCategory(tag)
+                .map(wishlists -> ResponseEntity.ok(new WishlistSearchResponse(wishlists)));
+    }
+
+    @GetMapping(value = "/tags/{tag}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<WishlistDTO> streamByTagsCategory(@PathVariable String tag) {
+        return wishlistService.streamByTagsCategory(tag).map(WishlistDTO::from);
+    }
+
+    @GetMapping("/exists")
+    public Mono<ResponseEntity<ExistsResponse>> existsByCustomerIdAndProductId(@RequestParam String customerId, @RequestParam String productId) {
+        return wishlistService.existsByCustomerIdAndProductId(customerId, productId)
+                .map(exists -> ResponseEntity.ok(new ExistsResponse(exists)));
+    }
+}
@@ -1,54 +1,167 @@
 package com.labs.wishlistservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.VersionedWishlists;
 import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.dtos.*;
+import com.labs.wishlistservice.infra.GlobalExceptionHandler;
+import com.labs.wishlistservice.infra.WishlistMetrics;
 import com.labs.wishlistservice.service.WishlistService;
-import com.labs.wishlistservice.dtos.WishlistDTO;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/wishlist")
+@Profile("!reactive")
 public class WishlistController {
 
+    private static final CacheControl CUSTOMER_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private WishlistService wishlistService;
+    private ObjectWriter wishlistWriter;
+    private WishlistMetrics metrics;
 
-    public WishlistController(WishlistService wishlistService) {
+    public WishlistController(WishlistService wishlistService, ObjectMapper objectMapper, WishlistMetrics metrics) {
         this.wishlistService = wishlistService;
+        this.wishlistWriter = objectMapper.writerFor(WishlistDTO.class);
+        this.metrics = metrics;
     }
 
     @PostMapping
-    public ResponseEntity<Map<String, Object>> save(@Valid @RequestBody WishlistDTO wishlist) {
+    public ResponseEntity<MessageResponse> save(@Valid @RequestBody WishlistDTO wishlist) {
         wishlistService.save(new Wishlist(wishlist));
-        return ResponseEntity.status(201).body(Map.of("message", "Wishlist save sucess"));
+        return ResponseEntity.status(201).body(new MessageResponse("Wishlist save sucess"));
     }
 
     @DeleteMapping()
-    protected  ResponseEntity<Map<String, Object>> delete(@Valid @RequestBody WishlistDTO wishlist) {
-        wishlistService.delete(Wishlist.generateCompositeId(wishlist.customerId(), wishlist.productId()));
-        return ResponseEntity.ok(Map.of("message", "Wishlist deleted successfully"));
+    protected  ResponseEntity<MessageResponse> delete(@Valid @RequestBody WishlistDTO wishlist) {
+        wishlistService.delete(wishlist.customerId(), wishlist.productId());
+        return ResponseEntity.ok(new MessageResponse("Wishlist deleted successfully"));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultsResponse> saveAll(@Valid @RequestBody WishlistBatchDTO batch) {
+        return ResponseEntity.ok(new BatchResultsResponse(wishlistService.saveAll(batch.customerId(), batch.toWishlists())));
     }
 
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResultsResponse> deleteAll(@Valid @RequestBody WishlistBatchDTO batch) {
+        return ResponseEntity.ok(new BatchResultsResponse(wishlistService.deleteAll(batch.customerId(), batch.productIds())));
+    }
+
+    /**
+     * Answers a matching {@code If-None-Match} with 304 from the version alone, without loading the list. Clients
+     * revalidate on every fetch ({@code no-cache}); the ETag is only sent with a list, never with a 404.
+     */
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<Map<String, Object>> findAllCustomer(@PathVariable String customerId) {
-        List<Wishlist> wishlists = wishlistService.findAllCustomer(customerId);
-        return ResponseEntity.ok(
-                Map.of("wishlists", wishlists.stream().map(WishlistDTO::from).toList())
-        );
+    public ResponseEntity<?> findAllCustomer(@PathVariable String customerId,
+                                             @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String version = wishlistService.findVersion(customerId);
+            if (version != null && matches(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).cacheControl(CUSTOMER_CACHE_CONTROL).build();
+            }
+        }
+
+        VersionedWishlists found = wishlistService.findAllCustomer(customerId);
+        if (found.wishlists().isEmpty())
+            return notFound("No wishlists found for customer with id " + customerId);
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CUSTOMER_CACHE_CONTROL);
+        if (found.version() != null) {
+            ok.eTag(found.version());
+        }
+        return ok.body(new WishlistsResponse(found.wishlists()));
     }
 
     @GetMapping("/tags/{tag}")
-    public ResponseEntity<Map<String, Object>> findByTagsCategory(@PathVariable String tag) {
-        return ResponseEntity.ok(Map.of("wishlists", wishlistService.findByTagsCategory(tag)));
+    public ResponseEntity<?> findByTagsCategory(@PathVariable String tag) {
+        List<Wishlist> wishlists = wishlistService.findByTagsCategory(tag);
+        if (wishlists.isEmpty())
+            return notFound("No wishlists found with tag category: " + tag);
+
+        return ResponseEntity.ok(new WishlistSearchResponse(wishlists));
+    }
+
+    @GetMapping("/tags/stats")
+    public ResponseEntity<TopTagsResponse> findTopTags(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(new TopTagsResponse(wishlistService.findTopTags(limit)));
+    }
+
+    @GetMapping("/tags/{tag}/stats")
+    public ResponseEntity<?> findTagStats(@PathVariable String tag, @RequestParam(defaultValue = "10") int limit) {
+        TagStats stats = wishlistService.findTagStats(tag);
+        if (stats == null || stats.getCount() <= 0)
+            return notFound("No stats found for tag: " + tag);
+
+        return ResponseEntity.ok(new TagStatsResponse(stats.getTag(), stats.getCount(),
+                wishlistService.findTopProducts(stats.getTag(), limit)));
+    }
+
+    @GetMapping("/tags/{tag}/page")
+    public ResponseEntity<WishlistPageDTO> findByTagsCategoryPage(@PathVariable String tag,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(WishlistPageDTO.from(wishlistService.findByTagsCategoryPage(tag, after, size)));
+    }
+
+    @GetMapping(value = "/tags/{tag}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByTagsCategory(@PathVariable String tag) {
+        StreamingResponseBody body = out -> {
+            try (Stream<Wishlist> wishlists = wishlistService.streamByTagsCategory(tag)) {
+                Iterator<Wishlist> iterator = wishlists.iterator();
+                while (iterator.hasNext()) {
+                    out.write(wishlistWriter.writeValueAsBytes(WishlistDTO.from(iterator.next())));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/products/top")
+    public ResponseEntity<TopProductsResponse> findMostWishlisted(@RequestParam(required = false) String tag,
+                                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(new TopProductsResponse(wishlistService.findMostWishlisted(tag, limit)));
     }
 
     @GetMapping("/exists")
-    public ResponseEntity<Map<String, Object>> existsByCustomerIdAndProductId(@RequestParam String customerId, @RequestParam String productId) {
+    public ResponseEntity<ExistsResponse> existsByCustomerIdAndProductId(@RequestParam String customerId, @RequestParam String productId) {
         boolean exists = wishlistService.existsByCustomerIdAndProductId(customerId, productId);
-        return ResponseEntity.ok(Map.of("exists", exists));
+        return ResponseEntity.ok(new ExistsResponse(exists));
+    }
+
+    @GetMapping("/exists/batch")
+    public ResponseEntity<ProductIdsResponse> findExistingProductIds(@RequestParam String customerId,
+                                                                     @RequestParam
+                                                                     @Size(max = 100, message = "At most 100 product IDs can be checked at once")
+                                                                     List<String> productIds) {
+        return ResponseEntity.ok(new ProductIdsResponse(wishlistService.findExistingProductIds(customerId, productIds)));
+    }
+
+    private static boolean matches(String ifNoneMatch, String version) {
+        ETag current = ETag.create(version);
+        return ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.compare(current, false));
+    }
+
+    private ResponseEntity<ErrorResponse> notFound(String message) {
+        metrics.notFound();
+        return GlobalExceptionHandler.buildResponse(HttpStatus.NOT_FOUND, message);
     }
 
 }
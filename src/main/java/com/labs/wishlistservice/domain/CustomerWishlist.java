@@ -0,0 +1,44 @@
+package com.labs.wishlistservice.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Whole wishlist of a customer in one document, used by the {@code embedded} storage layout.
+ * The size of {@code items} is the limit check, so adds and removes are single atomic updates, which also replace
+ * the {@code version} behind the ETag of the list.
+ */
+@Getter
+@Setter @NoArgsConstructor
+@Document(collection = "customer_wishlist")
+@Sharded(shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
+@CompoundIndex(name = "items_tagTokens", def = "{'items.tagTokens': 1}")
+public class CustomerWishlist {
+    @Id
+    private String customerId;
+    private List<Item> items = new ArrayList<>();
+    private String version;
+
+    public List<Wishlist> toWishlists() {
+        return items.stream()
+                .map(item -> new Wishlist(customerId, item.getProductId(), item.getTagsCategory()))
+                .toList();
+    }
+
+    @Getter
+    @Setter @NoArgsConstructor
+    public static class Item {
+        private String productId;
+        private String tagsCategory;
+        private List<String> tagTokens;
+    }
+}
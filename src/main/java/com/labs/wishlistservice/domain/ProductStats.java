@@ -0,0 +1,23 @@
+package com.labs.wishlistservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Number of wishlists holding a product, keyed by product id. Maintained together with {@link TagStats}, so the
+ * most wishlisted products are the first entries of the {@code count} index.
+ */
+@Getter
+@Setter @NoArgsConstructor @AllArgsConstructor
+@Document(collection = "product_stats")
+@CompoundIndex(name = "count_product", def = "{'count': -1, '_id': 1}")
+public class ProductStats {
+    @Id
+    private String productId;
+    private long count;
+}
@@ -0,0 +1,34 @@
+package com.labs.wishlistservice.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+
+/**
+ * Number of wishlists holding a product under a tag token, keyed by {@code tag:productId}.
+ * Maintained together with {@link TagStats}. Sharded by tag, so the ranking of one tag is read from one shard.
+ */
+@Getter
+@Setter @NoArgsConstructor
+@Document(collection = "tag_product_stats")
+@CompoundIndex(name = "tag_count", def = "{'tag': 1, 'count': -1}")
+@Sharded(shardKey = "tag", immutableKey = true)
+public class TagProductStats {
+    @Id
+    @JsonIgnore
+    private String id;
+    @JsonIgnore
+    private String tag;
+    private String productId;
+    private long count;
+
+    public static String generateId(String tag, String productId) {
+        // Tokens only hold letters and digits, so the separator cannot be ambiguous.
+        return tag + ":" + productId;
+    }
+}
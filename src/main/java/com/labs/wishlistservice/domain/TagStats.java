@@ -0,0 +1,22 @@
+package com.labs.wishlistservice.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Number of wishlist items holding a tag token, keyed by the token. Kept up to date with an {@code $inc} on every
+ * add and remove, so the most used tags are an index scan instead of a pass over the wishlists.
+ */
+@Getter
+@Setter @NoArgsConstructor
+@Document(collection = "tag_stats")
+@CompoundIndex(name = "count_tag", def = "{'count': -1, '_id': 1}")
+public class TagStats {
+    @Id
+    private String tag;
+    private long count;
+}
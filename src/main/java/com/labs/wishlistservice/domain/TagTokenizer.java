@@ -0,0 +1,32 @@
+package com.labs.wishlistservice.domain;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a tag category into lowercase, accent-free word tokens, e.g. {@code "Eletrônicos Cozinha"}
+ * becomes {@code [eletronicos, cozinha]}. Tokens only hold letters and digits.
+ */
+public final class TagTokenizer {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private TagTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return SEPARATORS.splitAsStream(folded)
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,10 @@
+package com.labs.wishlistservice.domain;
+
+import java.util.List;
+
+/**
+ * Wishlists of a customer with the version read just before them, so the version never claims a change the list
+ * does not hold yet. {@code version} is {@code null} until the first add or remove that sets it.
+ */
+public record VersionedWishlists(String version, List<Wishlist> wishlists) {
+}
@@ -1,38 +1,49 @@
 package com.labs.wishlistservice.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.labs.wishlistservice.dtos.WishlistDTO;
 import lombok.*;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
+
+import java.util.List;
 
 @Getter
 @Setter @NoArgsConstructor
 @Document(collection = "wishlist")
+@Sharded(shardKey = "customerId", shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
+@CompoundIndex(name = "customer_product", def = "{'customerId': 1, 'productId': 1}", unique = true)
+@CompoundIndex(name = "tagTokens_id", def = "{'tagTokens': 1, '_id': 1}")
 public class Wishlist {
     @Id
     private String id;
-    @Indexed
     private String customerId;
     private String productId;
     private String tagsCategory;
+    @JsonIgnore
+    private List<String> tagTokens;
 
     public Wishlist(String customerId, String productId, String tagsCategory) {
         this.customerId = customerId;
         this.productId = productId;
-        this.tagsCategory = tagsCategory;
+        setTagsCategory(tagsCategory);
         this.id = generateCompositeId(customerId, productId);
     }
 
     public Wishlist(WishlistDTO wishlist) {
-        this.customerId = wishlist.customerId();
-        this.productId = wishlist.productId();
-        this.tagsCategory = wishlist.tagsCategory();
-        this.id = generateCompositeId(customerId, productId);
+        this(wishlist.customerId(), wishlist.productId(), wishlist.tagsCategory());
+    }
+
+    public void setTagsCategory(String tagsCategory) {
+        this.tagsCategory = tagsCategory;
+        this.tagTokens = TagTokenizer.tokenize(tagsCategory);
     }
 
     public static String generateCompositeId(String customerId, String productId) {
-        return "customer#" + customerId + "-product#" + productId;
+        return WishlistKeyFormat.LEGACY.id(customerId, productId);
     }
 }
 
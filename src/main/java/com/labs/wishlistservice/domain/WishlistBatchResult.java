@@ -0,0 +1,15 @@
+package com.labs.wishlistservice.domain;
+
+/**
+ * Outcome of one item of a batch add or remove.
+ */
+public record WishlistBatchResult(String productId, Status status) {
+
+    public enum Status {
+        ADDED,
+        REMOVED,
+        DUPLICATE,
+        LIMIT_EXCEEDED,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,25 @@
+package com.labs.wishlistservice.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+import org.springframework.data.mongodb.core.mapping.ShardingStrategy;
+
+/**
+ * Number of wishlist items a customer currently holds, keyed by customer id.
+ * Updated with guarded atomic increments so the limit check never needs a count query.
+ * {@code version} is replaced after every write that adds or removes items and backs the ETag of the list.
+ */
+@Getter
+@Setter @NoArgsConstructor
+@Document(collection = "wishlist_counter")
+@Sharded(shardingStrategy = ShardingStrategy.HASH, immutableKey = true)
+public class WishlistCounter {
+    @Id
+    private String customerId;
+    private long count;
+    private String version;
+}
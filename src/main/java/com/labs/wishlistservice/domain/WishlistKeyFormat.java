@@ -0,0 +1,66 @@
+package com.labs.wishlistservice.domain;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Format of the {@code _id} of item documents, picked with {@code wishlist.storage.key-format}.
+ * Lookups go through the unique {@code customerId + productId} index, so both formats can live in the
+ * same collection while {@link com.labs.wishlistservice.migration.CompactKeyMigration} rewrites old keys.
+ */
+public enum WishlistKeyFormat {
+
+    /**
+     * {@code customer#<customerId>-product#<productId>}.
+     */
+    LEGACY {
+        @Override
+        public String id(String customerId, String productId) {
+            return "customer#" + customerId + "-product#" + productId;
+        }
+
+        @Override
+        public Document idExpression(String customerId, String productId) {
+            return new Document("$concat", List.of("customer#", customerId, "-product#", productId));
+        }
+    },
+
+    /**
+     * {@code <code points in customerId>:<customerId><productId>}: trades the 18 bytes of fixed text of {@link #LEGACY}
+     * for a short length prefix, which is enough to tell where the customer id ends.
+     */
+    COMPACT {
+        @Override
+        public String id(String customerId, String productId) {
+            return customerId.codePointCount(0, customerId.length()) + ":" + customerId + productId;
+        }
+
+        @Override
+        public Document idExpression(String customerId, String productId) {
+            return new Document("$concat", List.of(
+                    new Document("$toString", new Document("$strLenCP", customerId)), ":", customerId, productId));
+        }
+    };
+
+    public abstract String id(String customerId, String productId);
+
+    /**
+     * Aggregation expression computing {@link #id(String, String)} from the given field paths ({@code "$field"}).
+     */
+    public abstract Document idExpression(String customerId, String productId);
+
+    /**
+     * Customer id held by an item {@code _id} in either format. A legacy key whose customer id itself contains
+     * {@code -product#} cannot be split reliably; the first occurrence is taken.
+     */
+    public static String customerIdOf(String id) {
+        if (id.startsWith("customer#")) {
+            int start = "customer#".length();
+            return id.substring(start, id.indexOf("-product#", start));
+        }
+        int colon = id.indexOf(':');
+        int length = Integer.parseInt(id, 0, colon, 10);
+        return id.substring(colon + 1, id.offsetByCodePoints(colon + 1, length));
+    }
+}
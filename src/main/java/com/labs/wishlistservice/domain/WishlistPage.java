@@ -0,0 +1,10 @@
+package com.labs.wishlistservice.domain;
+
+import java.util.List;
+
+/**
+ * One keyset page of wishlists; {@code next} is the opaque cursor to resume after, or {@code null} on the
+ * last page.
+ */
+public record WishlistPage(List<Wishlist> wishlists, String next) {
+}
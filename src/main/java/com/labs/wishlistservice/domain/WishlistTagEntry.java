@@ -0,0 +1,64 @@
+package com.labs.wishlistservice.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Sharded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copy of a wishlist item under one of its tag tokens, so tag searches read a range of {@code token} instead of
+ * every shard of the {@code wishlist} collection. {@code prev} is the token before this one in the item's sorted
+ * tokens: for a prefix, only the first matching token of an item has a {@code prev} that does not match, which
+ * returns each item once without a {@code $group}.
+ */
+@Getter
+@Setter @NoArgsConstructor
+@Document(collection = "wishlist_by_tag")
+@Sharded(shardKey = {"token", "wishlistId"}, immutableKey = true)
+@CompoundIndex(name = "token_wishlistId", def = "{'token': 1, 'wishlistId': 1}", unique = true)
+public class WishlistTagEntry {
+    @Id
+    private String id;
+    private String token;
+    private String prev;
+    private String wishlistId;
+    private String customerId;
+    private String productId;
+    private String tagsCategory;
+    private List<String> tagTokens;
+
+    /**
+     * One entry per tag token of the item, keyed by the item's stored id.
+     */
+    public static List<WishlistTagEntry> of(Wishlist wishlist) {
+        if (wishlist.getTagTokens() == null || wishlist.getTagTokens().isEmpty())
+            return List.of();
+
+        List<String> sorted = wishlist.getTagTokens().stream().sorted().toList();
+        List<WishlistTagEntry> entries = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            WishlistTagEntry entry = new WishlistTagEntry();
+            entry.token = sorted.get(i);
+            entry.prev = i == 0 ? null : sorted.get(i - 1);
+            entry.wishlistId = wishlist.getId();
+            entry.customerId = wishlist.getCustomerId();
+            entry.productId = wishlist.getProductId();
+            entry.tagsCategory = wishlist.getTagsCategory();
+            entry.tagTokens = wishlist.getTagTokens();
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    public Wishlist toWishlist() {
+        Wishlist wishlist = new Wishlist(customerId, productId, tagsCategory);
+        wishlist.setId(wishlistId);
+        return wishlist;
+    }
+}
@@ -0,0 +1,8 @@
+package com.labs.wishlistservice.dtos;
+
+import com.labs.wishlistservice.domain.WishlistBatchResult;
+
+import java.util.List;
+
+public record BatchResultsResponse(List<WishlistBatchResult> results) {
+}
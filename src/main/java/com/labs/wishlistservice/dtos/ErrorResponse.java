@@ -0,0 +1,17 @@
+package com.labs.wishlistservice.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+/**
+ * Error body; {@code errors} holds the message of each invalid field and is left out otherwise.
+ */
+public record ErrorResponse(int status, String message,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Map<String, String> errors) {
+
+    public static ErrorResponse of(HttpStatus status, String message) {
+        return new ErrorResponse(status.value(), message, null);
+    }
+}
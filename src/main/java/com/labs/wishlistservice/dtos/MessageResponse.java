@@ -0,0 +1,4 @@
+package com.labs.wishlistservice.dtos;
+
+public record MessageResponse(String message) {
+}
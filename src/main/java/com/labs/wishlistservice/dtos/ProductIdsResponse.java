@@ -0,0 +1,6 @@
+package com.labs.wishlistservice.dtos;
+
+import java.util.List;
+
+public record ProductIdsResponse(List<String> productIds) {
+}
@@ -0,0 +1,8 @@
+package com.labs.wishlistservice.dtos;
+
+import com.labs.wishlistservice.domain.TagProductStats;
+
+import java.util.List;
+
+public record TagStatsResponse(String tag, long count, List<TagProductStats> products) {
+}
@@ -0,0 +1,8 @@
+package com.labs.wishlistservice.dtos;
+
+import com.labs.wishlistservice.domain.ProductStats;
+
+import java.util.List;
+
+public record TopProductsResponse(List<ProductStats> products) {
+}
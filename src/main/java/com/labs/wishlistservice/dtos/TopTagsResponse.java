@@ -0,0 +1,8 @@
+package com.labs.wishlistservice.dtos;
+
+import com.labs.wishlistservice.domain.TagStats;
+
+import java.util.List;
+
+public record TopTagsResponse(List<TagStats> tags) {
+}
@@ -0,0 +1,23 @@
+package com.labs.wishlistservice.dtos;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record WishlistBatchDTO(@NotBlank(message = "Customer ID is required") String customerId,
+                               @NotEmpty(message = "Items are required")
+                               @Size(max = 100, message = "A batch accepts at most 100 items")
+                               List<@Valid WishlistItemDTO> items) {
+
+    public List<Wishlist> toWishlists() {
+        return items.stream().map(item -> new Wishlist(customerId, item.productId(), item.tagsCategory())).toList();
+    }
+
+    public List<String> productIds() {
+        return items.stream().map(WishlistItemDTO::productId).toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.labs.wishlistservice.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record WishlistItemDTO(@NotBlank(message = "Product ID is required") String productId,
+                              String tagsCategory) {
+}
@@ -0,0 +1,59 @@
+package com.labs.wishlistservice.dtos;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.labs.wishlistservice.domain.Wishlist;
+
+import java.io.IOException;
+
+/**
+ * Writes loaded {@link Wishlist} items field by field into the response, so list bodies need neither a
+ * {@link WishlistDTO} copy per item nor bean introspection.
+ */
+public final class WishlistJson {
+
+    private WishlistJson() {
+    }
+
+    /**
+     * Same fields as {@link WishlistDTO}.
+     */
+    public static class Item extends StdSerializer<Wishlist> {
+
+        public Item() {
+            super(Wishlist.class);
+        }
+
+        @Override
+        public void serialize(Wishlist wishlist, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            writeFields(wishlist, generator);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Same fields as the {@link Wishlist} document, {@code id} included.
+     */
+    public static class WithId extends StdSerializer<Wishlist> {
+
+        public WithId() {
+            super(Wishlist.class);
+        }
+
+        @Override
+        public void serialize(Wishlist wishlist, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", wishlist.getId());
+            writeFields(wishlist, generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeFields(Wishlist wishlist, JsonGenerator generator) throws IOException {
+        generator.writeStringField("customerId", wishlist.getCustomerId());
+        generator.writeStringField("productId", wishlist.getProductId());
+        generator.writeStringField("tagsCategory", wishlist.getTagsCategory());
+    }
+}
@@ -0,0 +1,14 @@
+package com.labs.wishlistservice.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistPage;
+
+import java.util.List;
+
+public record WishlistPageDTO(@JsonSerialize(contentUsing = WishlistJson.Item.class) List<Wishlist> wishlists, String next) {
+
+    public static WishlistPageDTO from(WishlistPage page) {
+        return new WishlistPageDTO(page.wishlists(), page.next());
+    }
+}
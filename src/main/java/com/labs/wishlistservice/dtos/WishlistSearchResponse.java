@@ -0,0 +1,12 @@
+package com.labs.wishlistservice.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.labs.wishlistservice.domain.Wishlist;
+
+import java.util.List;
+
+/**
+ * Tag search results, each written with its {@code id}.
+ */
+public record WishlistSearchResponse(@JsonSerialize(contentUsing = WishlistJson.WithId.class) List<Wishlist> wishlists) {
+}
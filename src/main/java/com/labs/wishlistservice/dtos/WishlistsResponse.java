@@ -0,0 +1,12 @@
+package com.labs.wishlistservice.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.labs.wishlistservice.domain.Wishlist;
+
+import java.util.List;
+
+/**
+ * Wishlists of a customer, each written as a {@link WishlistDTO}.
+ */
+public record WishlistsResponse(@JsonSerialize(contentUsing = WishlistJson.Item.class) List<Wishlist> wishlists) {
+}
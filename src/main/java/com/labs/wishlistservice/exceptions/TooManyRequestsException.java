@@ -0,0 +1,19 @@
+package com.labs.wishlistservice.exceptions;
+
+/**
+ * Thrown when admission control turns a request away; like {@link WishlistNotFoundException} it skips stack
+ * trace capture, since it is raised on every rejected request.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,7 +1,10 @@
 package com.labs.wishlistservice.exceptions;
 
+/**
+ * Expected outcome rather than a failure, so it skips stack trace capture.
+ */
 public class WishlistNotFoundException extends RuntimeException {
     public WishlistNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
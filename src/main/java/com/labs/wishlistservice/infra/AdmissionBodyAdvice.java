@@ -0,0 +1,49 @@
+package com.labs.wishlistservice.infra;
+
+import com.labs.wishlistservice.dtos.WishlistBatchDTO;
+import com.labs.wishlistservice.dtos.WishlistDTO;
+import com.labs.wishlistservice.exceptions.TooManyRequestsException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Applies the customer limit to {@code POST}/{@code DELETE /wishlist} and {@code /wishlist/batch}, whose customer
+ * is only known once the body is read. Runs before validation and before the controller touches the store.
+ */
+@ControllerAdvice
+@Profile("!reactive")
+@ConditionalOnProperty(name = "wishlist.admission.enabled", havingValue = "true")
+public class AdmissionBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private final AdmissionControl admissionControl;
+
+    public AdmissionBodyAdvice(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public boolean supports(MethodParameter parameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType == WishlistDTO.class || targetType == WishlistBatchDTO.class;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        String customerId = body instanceof WishlistDTO wishlist ? wishlist.customerId() : ((WishlistBatchDTO) body).customerId();
+        if (customerId != null && !customerId.isBlank()) {
+            long wait = admissionControl.admitCustomer(customerId);
+            if (wait > 0) {
+                throw new TooManyRequestsException("Too many requests for customer " + customerId,
+                        AdmissionControl.retryAfterSeconds(wait));
+            }
+        }
+        return body;
+    }
+}
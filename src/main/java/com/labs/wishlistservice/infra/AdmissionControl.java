@@ -0,0 +1,83 @@
+package com.labs.wishlistservice.infra;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-customer and global rate limits checked before a request reaches the controller. Each customer has its own
+ * {@link RateLimiter}, created on first use and dropped once idle long enough to be full again. The global limit
+ * is split into stripes picked by thread, so concurrent requests rarely compete for the same counter; a request
+ * whose stripe is empty tries the next one before being turned away. Enabled with {@code wishlist.admission.enabled}.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.admission.enabled", havingValue = "true")
+public class AdmissionControl {
+
+    private final WishlistMetrics metrics;
+    private final RateLimiter[] global;
+    private final int mask;
+    private final Cache<String, RateLimiter> customers;
+    private final double customerRate;
+    private final int customerBurst;
+
+    public AdmissionControl(WishlistMetrics metrics,
+                            @Value("${wishlist.admission.customer.rate:10}") double customerRate,
+                            @Value("${wishlist.admission.customer.burst:20}") int customerBurst,
+                            @Value("${wishlist.admission.global.rate:2000}") double globalRate,
+                            @Value("${wishlist.admission.global.burst:500}") int globalBurst) {
+        this.metrics = metrics;
+        this.customerRate = customerRate;
+        this.customerBurst = customerBurst;
+
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        long now = System.nanoTime();
+        this.global = new RateLimiter[stripes];
+        for (int i = 0; i < stripes; i++) {
+            global[i] = new RateLimiter(globalRate / stripes, Math.max(1, globalBurst / stripes), now);
+        }
+        this.mask = stripes - 1;
+
+        Duration refill = Duration.ofNanos((long) (Math.max(1, customerBurst) * 1_000_000_000L / customerRate));
+        this.customers = Caffeine.newBuilder()
+                .expireAfterAccess(refill.plusSeconds(1))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * @return {@code 0} when admitted, otherwise the nanos until the global limit admits another request
+     */
+    public long admitGlobal() {
+        long now = System.nanoTime();
+        int stripe = (int) Thread.currentThread().threadId() & mask;
+        long wait = global[stripe].tryAcquire(now);
+        if (wait > 0 && mask > 0) {
+            wait = Math.min(wait, global[(stripe + 1) & mask].tryAcquire(now));
+        }
+        if (wait > 0) {
+            metrics.globalRateLimited();
+        }
+        return wait;
+    }
+
+    /**
+     * @return {@code 0} when admitted, otherwise the nanos until the customer may send another request
+     */
+    public long admitCustomer(String customerId) {
+        long now = System.nanoTime();
+        long wait = customers.get(customerId, id -> new RateLimiter(customerRate, customerBurst, now)).tryAcquire(now);
+        if (wait > 0) {
+            metrics.customerRateLimited();
+        }
+        return wait;
+    }
+
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,86 @@
+package com.labs.wishlistservice.infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.labs.wishlistservice.dtos.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Answers {@code 429} before the controller runs when the global limit, or the limit of the customer named in
+ * the URL ({@code ?customerId=} or {@code /wishlist/customer/{customerId}}), is exhausted. Customers sent in the
+ * request body are checked by {@link AdmissionBodyAdvice} once the body is read.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "wishlist.admission.enabled", havingValue = "true")
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String CUSTOMER_PATH = "/wishlist/customer/";
+
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionFilter(AdmissionControl admissionControl, ObjectMapper objectMapper) {
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith("/wishlist");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = admissionControl.admitGlobal();
+        if (wait > 0) {
+            reject(response, "Service is busy, retry later.", wait);
+            return;
+        }
+
+        String customerId = customerId(request);
+        if (customerId != null) {
+            wait = admissionControl.admitCustomer(customerId);
+            if (wait > 0) {
+                reject(response, "Too many requests for customer " + customerId, wait);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String customerId(HttpServletRequest request) {
+        String customerId = request.getParameter("customerId");
+        if (customerId != null && !customerId.isBlank()) {
+            return customerId;
+        }
+        String path = path(request);
+        if (path.startsWith(CUSTOMER_PATH) && path.length() > CUSTOMER_PATH.length()) {
+            return path.substring(CUSTOMER_PATH.length());
+        }
+        return null;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private void reject(HttpServletResponse response, String message, long waitNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(AdmissionControl.retryAfterSeconds(waitNanos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.of(HttpStatus.TOO_MANY_REQUESTS, message));
+    }
+}
@@ -0,0 +1,63 @@
+package com.labs.wishlistservice.infra;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CUSTOMER_WISHLISTS = "customerWishlists";
+    public static final String MISSING_CUSTOMERS = "missingCustomers";
+    public static final String MISSING_TAGS = "missingTags";
+    public static final String TOP_PRODUCTS = "topProducts";
+
+    /**
+     * Customers without items, kept apart from {@link #CUSTOMER_WISHLISTS} so lookups of unknown ids cannot push real
+     * lists out of it. Saves evict the customer's entry; the short TTL bounds what a miss cached from a secondary
+     * or by another instance can hide.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> missingCustomersCache(@Value("${wishlist.cache.missing-customers.size:10000}") long size,
+                                                                               @Value("${wishlist.cache.missing-customers.ttl:30s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(MISSING_CUSTOMERS, Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Tag searches that found nothing. Any save clears it, and the short TTL bounds how long a miss
+     * cached by a search racing that save can survive.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> missingTagsCache(@Value("${wishlist.cache.missing-tags.size:10000}") long size,
+                                                                          @Value("${wishlist.cache.missing-tags.ttl:30s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(MISSING_TAGS, Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Most wishlisted rankings. Not evicted by writes: the counters move on every save, so the ranking is simply
+     * allowed to be up to one TTL old.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> topProductsCache(@Value("${wishlist.cache.top-products.ttl:5s}") Duration ttl) {
+        return cacheManager -> cacheManager.registerCustomCache(TOP_PRODUCTS, Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+    }
+}
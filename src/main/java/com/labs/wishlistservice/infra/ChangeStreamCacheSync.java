@@ -0,0 +1,153 @@
+package com.labs.wishlistservice.infra;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.labs.wishlistservice.infra.CacheConfig.CUSTOMER_WISHLISTS;
+import static com.labs.wishlistservice.infra.CacheConfig.MISSING_CUSTOMERS;
+import static com.labs.wishlistservice.infra.CacheConfig.MISSING_TAGS;
+
+/**
+ * Keeps this instance's caches in line with writes made by any instance by following the change stream of the
+ * wishlist collection. Every change evicts the cached list of its customer, so the next read loads it together with
+ * its version, and a new item clears the tag misses. A dropped stream resumes from the last token seen; the token is
+ * only kept in memory, since the caches it protects start empty on every restart. Needs a replica set; enabled with
+ * {@code wishlist.sync.change-streams.enabled}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wishlist.sync.change-streams.enabled", havingValue = "true")
+public class ChangeStreamCacheSync implements SmartLifecycle {
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache customerWishlists;
+    private final Cache missingCustomers;
+    private final Cache missingTags;
+    private final boolean embedded;
+
+    private volatile boolean running;
+    private Thread worker;
+    private BsonDocument resumeToken;
+
+    public ChangeStreamCacheSync(MongoTemplate mongoTemplate, CacheManager cacheManager,
+                                 @Value("${wishlist.storage.layout:items}") String layout) {
+        this.mongoTemplate = mongoTemplate;
+        this.customerWishlists = cacheManager.getCache(CUSTOMER_WISHLISTS);
+        this.missingCustomers = cacheManager.getCache(MISSING_CUSTOMERS);
+        this.missingTags = cacheManager.getCache(MISSING_TAGS);
+        this.embedded = "embedded".equals(layout);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::follow, "wishlist-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void follow() {
+        String collection = mongoTemplate.getCollectionName(embedded ? CustomerWishlist.class : Wishlist.class);
+        // Only the key is needed to evict, so the documents themselves are not sent.
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.in("operationType", List.of("insert", "delete", "update", "replace"))),
+                Aggregates.project(Projections.include("operationType", "documentKey")));
+
+        while (running) {
+            ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection).watch(pipeline)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event == null) {
+                        continue;
+                    }
+                    apply(event);
+                    resumeToken = event.getResumeToken();
+                }
+            } catch (MongoException e) {
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST || e.getCode() == CHANGE_STREAM_FATAL_ERROR) {
+                    // Events were missed: start over from now and drop what may be stale.
+                    log.warn("Change stream on {} cannot resume, restarting from the current time", collection, e);
+                    resumeToken = null;
+                    customerWishlists.clear();
+                    missingCustomers.clear();
+                    missingTags.clear();
+                } else {
+                    log.warn("Change stream on {} failed, resuming in 1s", collection, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    void apply(ChangeStreamDocument<Document> event) {
+        BsonValue key = event.getDocumentKey() == null ? null : event.getDocumentKey().get("_id");
+        if (key == null || !key.isString()) {
+            return;
+        }
+        String id = key.asString().getValue();
+        OperationType type = event.getOperationType();
+        String customerId = embedded ? id : WishlistKeyFormat.customerIdOf(id);
+        if (type != OperationType.DELETE) {
+            missingCustomers.evict(customerId);
+            missingTags.clear();
+        }
+
+        customerWishlists.evict(customerId);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
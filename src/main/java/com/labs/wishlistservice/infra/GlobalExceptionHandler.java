@@ -1,14 +1,20 @@
 package com.labs.wishlistservice.infra;
 
+import com.labs.wishlistservice.dtos.ErrorResponse;
+import com.labs.wishlistservice.exceptions.TooManyRequestsException;
 import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
 import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,48 +22,74 @@ import java.util.Map;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final WishlistMetrics metrics;
+
+    public GlobalExceptionHandler(WishlistMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @ExceptionHandler(WishlistLimitExceededException.class)
-    public ResponseEntity<Map<String, Object>> handleWishlistLimitExceeded(WishlistLimitExceededException ex) {
+    public ResponseEntity<ErrorResponse> handleWishlistLimitExceeded(WishlistLimitExceededException ex) {
+        metrics.limitExceeded();
         return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
     }
 
     @ExceptionHandler(DuplicateKeyException.class)
-    public ResponseEntity<Map<String, Object>> handleDuplicateKey(DuplicateKeyException ex) {
+    public ResponseEntity<ErrorResponse> handleDuplicateKey(DuplicateKeyException ex) {
+        metrics.duplicate();
         return buildResponse(HttpStatus.CONFLICT, "A record with the same key already exists.");
     }
 
     @ExceptionHandler(WishlistNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleNotFound(WishlistNotFoundException ex) {
+    public ResponseEntity<ErrorResponse> handleNotFound(WishlistNotFoundException ex) {
+        metrics.notFound();
         return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ErrorResponse.of(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
-        Map<String, Object> errors = new HashMap<>();
-        errors.put("status", HttpStatus.BAD_REQUEST.value());
-        errors.put("message", "Validation failed");
+    public ResponseEntity<ErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
+        return buildValidationResponse(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleReactiveValidation(WebExchangeBindException ex) {
+        return buildValidationResponse(ex.getBindingResult());
+    }
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorResponse> handleParameterValidation(HandlerMethodValidationException ex) {
         Map<String, String> fieldErrors = new HashMap<>();
-        for (FieldError fieldError : ex.getBindingResult().getFieldErrors()) {
-            fieldErrors.put(fieldError.getField(), fieldError.getDefaultMessage());
-        }
-        errors.put("errors", fieldErrors);
+        ex.getParameterValidationResults().forEach(result -> result.getResolvableErrors().forEach(error ->
+                fieldErrors.put(result.getMethodParameter().getParameterName(), error.getDefaultMessage())));
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Validation failed", fieldErrors));
     }
 
     // Fallback para exceções não tratadas
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
+    public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred.");
     }
 
-    private ResponseEntity<Map<String, Object>> buildResponse(HttpStatus status, String message) {
-        return ResponseEntity.status(status).body(
-                Map.of(
-                        "status", status.value(),
-                        "message", message
-                )
-        );
+    private ResponseEntity<ErrorResponse> buildValidationResponse(BindingResult bindingResult) {
+        Map<String, String> fieldErrors = new HashMap<>();
+        for (FieldError fieldError : bindingResult.getFieldErrors()) {
+            fieldErrors.put(fieldError.getField(), fieldError.getDefaultMessage());
+        }
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Validation failed", fieldErrors));
+    }
+
+    public static ResponseEntity<ErrorResponse> buildResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(ErrorResponse.of(status, message));
     }
 }
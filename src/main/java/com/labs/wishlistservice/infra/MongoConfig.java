@@ -0,0 +1,41 @@
+package com.labs.wishlistservice.infra;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(MongoPoolProperties.class)
+public class MongoConfig {
+
+    /**
+     * Applies the {@code wishlist.mongo.pool.*} settings that are set. Boot applies the connection string first, so a
+     * setting given both here and as a URI option ({@code maxPoolSize}, {@code connectTimeoutMS}, ...) takes the value
+     * from here. In the {@code reactive} profile the reactive client gets the same settings as the blocking one.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(MongoPoolProperties pool) {
+        return settings -> settings
+                .applyToConnectionPoolSettings(builder -> {
+                    if (pool.maxSize() != null)
+                        builder.maxSize(pool.maxSize());
+                    if (pool.minSize() != null)
+                        builder.minSize(pool.minSize());
+                    if (pool.maxConnecting() != null)
+                        builder.maxConnecting(pool.maxConnecting());
+                    if (pool.maxWaitTime() != null)
+                        builder.maxWaitTime(pool.maxWaitTime().toMillis(), TimeUnit.MILLISECONDS);
+                    if (pool.maxConnectionIdleTime() != null)
+                        builder.maxConnectionIdleTime(pool.maxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+                })
+                .applyToSocketSettings(builder -> {
+                    if (pool.connectTimeout() != null)
+                        builder.connectTimeout(pool.connectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                    if (pool.readTimeout() != null)
+                        builder.readTimeout(pool.readTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                });
+    }
+}
@@ -0,0 +1,21 @@
+package com.labs.wishlistservice.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Mongo driver connection pool and socket settings ({@code wishlist.mongo.pool.*}). Their values live in
+ * {@code application.properties}; a setting left out keeps what the connection string or the driver gives it.
+ * The driver has no wait-queue size anymore: callers waiting for a connection are bounded by
+ * {@code maxWaitTime} and by {@code maxConnecting} concurrent connection establishments.
+ */
+@ConfigurationProperties("wishlist.mongo.pool")
+public record MongoPoolProperties(Integer maxSize,
+                                  Integer minSize,
+                                  Integer maxConnecting,
+                                  Duration maxWaitTime,
+                                  Duration maxConnectionIdleTime,
+                                  Duration connectTimeout,
+                                  Duration readTimeout) {
+}
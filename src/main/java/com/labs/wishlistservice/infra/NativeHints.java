@@ -0,0 +1,48 @@
+package com.labs.wishlistservice.infra;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.domain.WishlistTagEntry;
+import com.labs.wishlistservice.dtos.ErrorResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection a native image cannot discover from the AOT-processed bean definitions. Repository proxies, derived
+ * queries and controller request and response types are contributed by Spring Data and Spring MVC; this covers
+ * the documents read and written through {@code MongoTemplate} (their Lombok accessors and the fields the
+ * converter sets), the {@code T(TagTokenizer)} cache key expression, the key format bound from a property and
+ * the error body the admission filter writes with its own {@code ObjectMapper}.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    static final List<Class<?>> DOCUMENTS = List.of(
+            Wishlist.class, CustomerWishlist.class, CustomerWishlist.Item.class, WishlistCounter.class,
+            WishlistTagEntry.class, TagStats.class, ProductStats.class, TagProductStats.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (Class<?> document : DOCUMENTS) {
+            hints.reflection().registerType(document,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+            // The type-level category does not count as a hint on each accessor; register them one by one.
+            bindings.registerReflectionHints(hints.reflection(), document);
+        }
+        hints.reflection().registerType(TagTokenizer.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(WishlistKeyFormat.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        bindings.registerReflectionHints(hints.reflection(), ErrorResponse.class);
+    }
+}
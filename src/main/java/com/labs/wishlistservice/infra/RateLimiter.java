@@ -0,0 +1,40 @@
+package com.labs.wishlistservice.infra;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single {@link AtomicLong} (GCRA): the theoretical arrival time of the next permit.
+ * A permit is a compare-and-set, with no lock and no refill task. Up to {@code burst} permits can be taken at
+ * once, then one more every {@code 1 / permitsPerSecond} seconds.
+ */
+public final class RateLimiter {
+
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong theoreticalArrival;
+
+    public RateLimiter(double permitsPerSecond, int burst, long now) {
+        this.interval = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.tolerance = interval * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a permit at {@code now} (in {@link System#nanoTime()} units).
+     *
+     * @return {@code 0} when the permit was granted, otherwise the nanos until the next one is available
+     */
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + interval;
+            long allowedAt = next - tolerance;
+            if (now < allowedAt) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
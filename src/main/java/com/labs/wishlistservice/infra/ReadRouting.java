@@ -0,0 +1,80 @@
+package com.labs.wishlistservice.infra;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the template for read-only queries. Reads use {@code wishlist.read.preference} (bounded by
+ * {@code wishlist.read.max-staleness} off the primary), except for a customer who wrote within
+ * {@code wishlist.read.your-writes-window}, whose reads stay on the primary so they see their own changes.
+ * Writes, the limit check and the version behind {@code If-None-Match} always use the primary template.
+ * <p>
+ * Recent writers are tracked in memory, per instance. A customer whose next read lands on another instance within
+ * the window is routed like any other reader and may not see their write until the secondary catches up, at most
+ * {@code max-staleness} later. Deployments that read off the primary need session affinity by customer for
+ * read-your-writes across instances.
+ */
+@Component
+public class ReadRouting {
+
+    private final MongoTemplate primary;
+    private final MongoTemplate reads;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadRouting(MongoTemplate mongoTemplate,
+                       @Value("${wishlist.read.preference:primary}") String preference,
+                       @Value("${wishlist.read.max-staleness:90s}") Duration maxStaleness,
+                       @Value("${wishlist.read.your-writes-window:5s}") Duration readYourWritesWindow) {
+        this.primary = mongoTemplate;
+        this.reads = readTemplate(mongoTemplate, preference, maxStaleness);
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public void recordWrite(String customerId) {
+        if (reads != primary) {
+            recentWriters.put(customerId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Template for reads scoped to one customer.
+     */
+    public MongoTemplate forCustomer(String customerId) {
+        return recentWriters.getIfPresent(customerId) == null ? reads : primary;
+    }
+
+    /**
+     * Whether {@link #forCustomer(String)} currently reads the customer's data on the primary.
+     */
+    public boolean readsPrimary(String customerId) {
+        return forCustomer(customerId) == primary;
+    }
+
+    /**
+     * Template for reads across customers, such as tag searches.
+     */
+    public MongoTemplate forQueries() {
+        return reads;
+    }
+
+    private static MongoTemplate readTemplate(MongoTemplate primary, String preference, Duration maxStaleness) {
+        ReadPreference readPreference = ReadPreference.valueOf(preference);
+        if (readPreference.equals(ReadPreference.primary())) {
+            return primary;
+        }
+        MongoTemplate template = new MongoTemplate(primary.getMongoDatabaseFactory(), primary.getConverter());
+        template.setReadPreference(ReadPreference.valueOf(preference, List.of(), maxStaleness.toMillis(), TimeUnit.MILLISECONDS));
+        return template;
+    }
+}
@@ -0,0 +1,53 @@
+package com.labs.wishlistservice.infra;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters for requests the service turns away ({@code wishlist.rejections}, tagged by {@code reason}).
+ */
+@Component
+public class WishlistMetrics {
+
+    private final Counter limitExceeded;
+    private final Counter notFound;
+    private final Counter duplicate;
+    private final Counter customerRateLimited;
+    private final Counter globalRateLimited;
+
+    public WishlistMetrics(MeterRegistry registry) {
+        this.limitExceeded = rejections(registry, "limit_exceeded");
+        this.notFound = rejections(registry, "not_found");
+        this.duplicate = rejections(registry, "duplicate");
+        this.customerRateLimited = rejections(registry, "customer_rate_limited");
+        this.globalRateLimited = rejections(registry, "global_rate_limited");
+    }
+
+    public void limitExceeded() {
+        limitExceeded.increment();
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    public void duplicate() {
+        duplicate.increment();
+    }
+
+    public void customerRateLimited() {
+        customerRateLimited.increment();
+    }
+
+    public void globalRateLimited() {
+        globalRateLimited.increment();
+    }
+
+    private static Counter rejections(MeterRegistry registry, String reason) {
+        return Counter.builder("wishlist.rejections")
+                .description("Requests rejected by the wishlist service")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
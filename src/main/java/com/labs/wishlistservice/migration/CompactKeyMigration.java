@@ -0,0 +1,123 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites items still keyed with {@link WishlistKeyFormat#LEGACY} to {@link WishlistKeyFormat#COMPACT}, in the
+ * background so startup is not held up. An {@code _id} cannot be updated in place, so each item is moved: it is
+ * removed by its legacy {@code _id} and only the document that removal returned is inserted under the compact key.
+ * An item the customer deleted after the cursor read it is therefore not brought back, and one re-added in between
+ * under the compact key is kept as it is. A run that fails is picked up by the next one.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wishlist.storage.compact-key-migration-on-startup", havingValue = "true")
+public class CompactKeyMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final WishlistTagIndex tagIndex;
+    private final TaskExecutor taskExecutor;
+
+    public CompactKeyMigration(MongoTemplate mongoTemplate, WishlistTagIndex tagIndex, TaskExecutor taskExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.tagIndex = tagIndex;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        taskExecutor.execute(this::migrate);
+    }
+
+    void migrate() {
+        Query legacy = Query.query(Criteria.where("_id").regex("^customer#"));
+        legacy.fields().include("_id", "customerId");
+        legacy.cursorBatchSize(BATCH_SIZE);
+        String collection = mongoTemplate.getCollectionName(Wishlist.class);
+
+        long migrated = 0;
+        List<Wishlist> removed = new ArrayList<>();
+        List<Wishlist> inserted = new ArrayList<>();
+        try (Stream<Document> wishlists = mongoTemplate.stream(legacy, Document.class, collection)) {
+            Iterator<Document> iterator = wishlists.iterator();
+            while (iterator.hasNext()) {
+                Document key = iterator.next();
+                Document wishlist = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(key.get("_id"))
+                        .and("customerId").is(key.getString("customerId"))), Document.class, collection);
+                if (wishlist == null)
+                    continue;
+
+                Wishlist legacyItem = toWishlist(wishlist);
+                boolean moved = move(wishlist, collection);
+                removed.add(legacyItem);
+                if (moved) {
+                    inserted.add(toWishlist(wishlist));
+                    migrated++;
+                }
+                if (removed.size() == BATCH_SIZE) {
+                    moveTagEntries(removed, inserted);
+                }
+            }
+        } catch (DataAccessException e) {
+            moveTagEntries(removed, inserted);
+            log.warn("Compact key migration stopped after {} items; the rest is picked up on the next run", migrated, e);
+            return;
+        }
+        moveTagEntries(removed, inserted);
+        log.info("Compact key migration rewrote {} items", migrated);
+    }
+
+    /**
+     * Inserts the removed document under the compact key, putting it back under its legacy key if that fails.
+     *
+     * @return {@code false} when the customer re-added the item under the compact key in between
+     */
+    private boolean move(Document wishlist, String collection) {
+        Object legacyId = wishlist.get("_id");
+        wishlist.put("_id", WishlistKeyFormat.COMPACT.id(wishlist.getString("customerId"), wishlist.getString("productId")));
+        try {
+            mongoTemplate.insert(wishlist, collection);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        } catch (DataAccessException e) {
+            wishlist.put("_id", legacyId);
+            mongoTemplate.insert(wishlist, collection);
+            throw e;
+        }
+    }
+
+    private void moveTagEntries(List<Wishlist> removed, List<Wishlist> inserted) {
+        tagIndex.record(removed, -1);
+        tagIndex.record(inserted, 1);
+        removed.clear();
+        inserted.clear();
+    }
+
+    private static Wishlist toWishlist(Document document) {
+        Wishlist wishlist = new Wishlist(document.getString("customerId"), document.getString("productId"), document.getString("tagsCategory"));
+        wishlist.setId(document.getString("_id"));
+        return wishlist;
+    }
+}
@@ -0,0 +1,56 @@
+package com.labs.wishlistservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the {@code @Document} entities, which {@code spring.data.mongodb.auto-index-creation}
+ * no longer checks on every startup. Run it once per release that adds an index, before the release takes traffic;
+ * indexes that already exist with the same definition are kept. Runs after {@link ShardCollections} and before the
+ * other migrations, since the tag index rebuild merges on a unique index.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "wishlist.indexes.create-on-startup", havingValue = "true")
+public class CreateIndexes implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public CreateIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class))
+                continue;
+
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            List<String> created = new ArrayList<>();
+            resolver.resolveIndexForEntity(entity).forEach(index -> created.add(indexOps.createIndex(index)));
+            if (!created.isEmpty()) {
+                log.info("Indexes of {}: {}", entity.getCollection(), created);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.Wishlist;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the {@code wishlist} item documents into one {@link CustomerWishlist} per customer, for switching
+ * {@code wishlist.storage.layout} to {@code embedded}. Customers that already have an embedded document are kept,
+ * so it can be re-run, but items written to the old layout after a customer was copied are not picked up.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.storage.migrate-to-embedded-on-startup", havingValue = "true")
+public class EmbeddedLayoutMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public EmbeddedLayoutMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MergeOperation merge = MergeOperation.builder()
+                .intoCollection(mongoTemplate.getCollectionName(CustomerWishlist.class))
+                .on("_id")
+                .whenMatched(WhenDocumentsMatch.keepExistingDocument())
+                .whenDocumentsDontMatch(WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+
+        Document item = new Document("productId", "$productId")
+                .append("tagsCategory", "$tagsCategory")
+                .append("tagTokens", "$tagTokens");
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.sort(Sort.Direction.ASC, "_id"),
+                context -> new Document("$group", new Document("_id", "$customerId")
+                        .append("items", new Document("$push", item))),
+                merge
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Wishlist.class), Document.class);
+    }
+}
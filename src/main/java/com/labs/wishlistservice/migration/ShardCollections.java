@@ -0,0 +1,66 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import com.labs.wishlistservice.domain.WishlistTagEntry;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.ShardKey;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Shards the collections of the active storage layout on the keys declared with {@code @Sharded}: customer data
+ * by a hashed customer id, {@code tag_product_stats} by tag and {@code wishlist_by_tag} by token. Hashed key
+ * indexes are created first, since a collection with data cannot be sharded without one. Needs a {@code mongos};
+ * a collection already sharded on the same key is left as it is. {@code tag_stats} and {@code product_stats} stay
+ * unsharded: they hold one document per tag or product and are ranked as a whole.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "wishlist.sharding.shard-collections-on-startup", havingValue = "true")
+public class ShardCollections implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final List<Class<?>> entities;
+
+    public ShardCollections(MongoTemplate mongoTemplate, @Value("${wishlist.storage.layout:items}") String layout) {
+        this.mongoTemplate = mongoTemplate;
+        this.entities = "embedded".equals(layout)
+                ? List.of(CustomerWishlist.class, TagProductStats.class, WishlistTagEntry.class)
+                : List.of(Wishlist.class, WishlistCounter.class, TagProductStats.class, WishlistTagEntry.class);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MongoDatabase admin = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin");
+        String database = mongoTemplate.getDb().getName();
+        for (Class<?> entity : entities) {
+            String collection = mongoTemplate.getCollectionName(entity);
+            ShardKey key = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entity).getShardKey();
+            Document keys = key.getDocument();
+            try {
+                if (keys.containsValue("hashed")) {
+                    mongoTemplate.getCollection(collection).createIndex(keys);
+                }
+                admin.runCommand(new Document("shardCollection", database + "." + collection).append("key", keys));
+                log.info("Collection {} sharded on {}", collection, keys.toJson());
+            } catch (MongoException e) {
+                log.warn("Could not shard {} on {}", collection, keys.toJson(), e);
+            }
+        }
+    }
+}
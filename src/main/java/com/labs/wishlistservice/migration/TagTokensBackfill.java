@@ -0,0 +1,53 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.Wishlist;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Fills {@code tagTokens} on items saved before tag tokenization existed, in unordered bulk batches.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.tags.backfill-on-startup", havingValue = "true")
+public class TagTokensBackfill implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public TagTokensBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query pending = Query.query(Criteria.where("tagTokens").exists(false));
+        pending.fields().include("customerId").include("tagsCategory");
+        pending.cursorBatchSize(BATCH_SIZE);
+
+        try (Stream<Wishlist> wishlists = mongoTemplate.stream(pending, Wishlist.class)) {
+            Iterator<Wishlist> iterator = wishlists.iterator();
+            while (iterator.hasNext()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Wishlist.class);
+                for (int i = 0; i < BATCH_SIZE && iterator.hasNext(); i++) {
+                    Wishlist wishlist = iterator.next();
+                    // customerId is the shard key, so each update goes to one shard.
+                    bulk.updateOne(Query.query(Criteria.where("_id").is(wishlist.getId()).and("customerId").is(wishlist.getCustomerId())),
+                            Update.update("tagTokens", TagTokenizer.tokenize(wishlist.getTagsCategory())));
+                }
+                bulk.execute();
+            }
+        }
+    }
+}
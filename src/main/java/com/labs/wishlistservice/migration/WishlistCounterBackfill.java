@@ -0,0 +1,47 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds {@link WishlistCounter} documents for customers whose items were saved before the counters existed.
+ * Counters that are already present are kept, and an add seeds a missing counter from the items itself, so this
+ * only saves that count on the first add. A customer who removes an item while the aggregation runs, before having
+ * a counter, gets a counter one above their items, so run it with little write traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.counter.backfill-on-startup", havingValue = "true")
+public class WishlistCounterBackfill implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    public WishlistCounterBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        MergeOperation merge = MergeOperation.builder()
+                .intoCollection(mongoTemplate.getCollectionName(WishlistCounter.class))
+                .on("_id")
+                .whenMatched(WhenDocumentsMatch.keepExistingDocument())
+                .whenDocumentsDontMatch(WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("customerId").count().as("count"),
+                merge
+        );
+        mongoTemplate.aggregate(aggregation, Wishlist.class, Document.class);
+    }
+}
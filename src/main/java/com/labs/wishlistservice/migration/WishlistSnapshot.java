@@ -0,0 +1,280 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports or imports the wishlists of the active storage layout as gzipped parts of raw BSON documents, the same
+ * length-prefixed format as {@code mongodump} ({@code gunzip} a part and {@code bsondump} reads it). The export
+ * splits the customers into {@code wishlist.snapshot.parallelism} ranges from a {@code $sample} of customer ids and
+ * streams each range to its own part with a cursor; documents are copied as bytes, never decoded. The import reads
+ * the parts in parallel and inserts them in unordered batches, skipping documents that already exist, so it can
+ * be re-run. Memory stays at one batch per part either way.
+ * <p>
+ * Runs on startup with {@code wishlist.snapshot.mode} set to {@code export} or {@code import}, after
+ * {@link ShardCollections} and {@link CreateIndexes}, before the counter backfill and the stats rebuild so those see the imported data.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnExpression("'${wishlist.snapshot.mode:none}' != 'none'")
+public class WishlistSnapshot implements ApplicationRunner {
+
+    static final String PART_SUFFIX = ".bson.gz";
+    private static final int BATCH_SIZE = 1000;
+    private static final int SAMPLES_PER_RANGE = 100;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final String mode;
+    private final Path dir;
+    private final int parallelism;
+    private final String collection;
+    private final String customerField;
+
+    public WishlistSnapshot(MongoTemplate mongoTemplate,
+                            @Value("${wishlist.snapshot.mode:none}") String mode,
+                            @Value("${wishlist.snapshot.dir:snapshot}") Path dir,
+                            @Value("${wishlist.snapshot.parallelism:4}") int parallelism,
+                            @Value("${wishlist.storage.layout:items}") String layout) {
+        boolean embedded = "embedded".equals(layout);
+        this.mongoTemplate = mongoTemplate;
+        this.mode = mode;
+        this.dir = dir;
+        this.parallelism = Math.max(1, parallelism);
+        this.collection = mongoTemplate.getCollectionName(embedded ? CustomerWishlist.class : Wishlist.class);
+        this.customerField = embedded ? "_id" : "customerId";
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        switch (mode) {
+            case "export" -> exportTo(dir);
+            case "import" -> importFrom(dir);
+            default -> throw new IllegalArgumentException("Unknown wishlist.snapshot.mode: " + mode);
+        }
+    }
+
+    public long exportTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Path stale : parts(dir)) {
+            Files.delete(stale);
+        }
+        List<String> bounds = splitPoints();
+        List<Bson> ranges = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            Bson from = i == 0 ? null : Filters.gte(customerField, bounds.get(i - 1));
+            Bson to = i == bounds.size() ? null : Filters.lt(customerField, bounds.get(i));
+            ranges.add(from == null ? (to == null ? new BsonDocument() : to) : (to == null ? from : Filters.and(from, to)));
+        }
+
+        long started = System.nanoTime();
+        long documents = 0;
+        long bytes = 0;
+        for (long[] result : runParts(ranges.size(), part -> exportPart(ranges.get(part), dir.resolve(partName(part))))) {
+            documents += result[0];
+            bytes += result[1];
+        }
+        report("Exported", documents, bytes, ranges.size(), started);
+        return documents;
+    }
+
+    public long importFrom(Path dir) throws IOException {
+        List<Path> parts = parts(dir);
+        long started = System.nanoTime();
+        long documents = 0;
+        long bytes = 0;
+        long skipped = 0;
+        for (long[] result : runParts(parts.size(), part -> importPart(parts.get(part)))) {
+            documents += result[0];
+            bytes += result[1];
+            skipped += result[2];
+        }
+        report("Imported", documents, bytes, parts.size(), started);
+        if (skipped > 0) {
+            log.info("Snapshot import skipped {} documents that already existed", skipped);
+        }
+        return documents;
+    }
+
+    /**
+     * Customer ids splitting the collection into about {@code parallelism} ranges of similar size.
+     */
+    private List<String> splitPoints() {
+        if (parallelism == 1) {
+            return List.of();
+        }
+        TreeSet<String> samples = new TreeSet<>();
+        mongoTemplate.getCollection(collection).aggregate(List.of(
+                Aggregates.sample(parallelism * SAMPLES_PER_RANGE),
+                Aggregates.project(Projections.fields(Projections.include(customerField)))
+        )).forEach(document -> samples.add(String.valueOf(document.get(customerField))));
+
+        List<String> sorted = new ArrayList<>(samples);
+        List<String> bounds = new ArrayList<>();
+        for (int i = 1; i < parallelism && !sorted.isEmpty(); i++) {
+            String bound = sorted.get(i * sorted.size() / parallelism);
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    private long[] exportPart(Bson range, Path file) throws IOException {
+        MongoCollection<RawBsonDocument> raw = mongoTemplate.getCollection(collection).withDocumentClass(RawBsonDocument.class);
+        long documents = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+             MongoCursor<RawBsonDocument> cursor = raw.find(range).batchSize(BATCH_SIZE).cursor()) {
+            while (cursor.hasNext()) {
+                ByteBuffer document = cursor.next().getByteBuffer().asNIO();
+                out.write(document.array(), document.arrayOffset() + document.position(), document.remaining());
+                documents++;
+            }
+        }
+        return new long[]{documents, Files.size(file)};
+    }
+
+    private long[] importPart(Path file) throws IOException {
+        MongoCollection<RawBsonDocument> raw = mongoTemplate.getCollection(collection).withDocumentClass(RawBsonDocument.class);
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+        long documents = 0;
+        long skipped = 0;
+        byte[] header = new byte[4];
+        try (InputStream in = new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE)) {
+            List<RawBsonDocument> batch = new ArrayList<>(BATCH_SIZE);
+            while (in.readNBytes(header, 0, 4) == 4) {
+                int size = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt();
+                if (size < 5) {
+                    throw new IOException("Invalid document size " + size + " in " + file);
+                }
+                byte[] document = new byte[size];
+                System.arraycopy(header, 0, document, 0, 4);
+                if (in.readNBytes(document, 4, size - 4) != size - 4) {
+                    throw new EOFException("Truncated document in " + file);
+                }
+                batch.add(new RawBsonDocument(document));
+                if (batch.size() == BATCH_SIZE) {
+                    skipped += insert(raw, batch, unordered);
+                    documents += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                skipped += insert(raw, batch, unordered);
+                documents += batch.size();
+            }
+        }
+        return new long[]{documents - skipped, Files.size(file), skipped};
+    }
+
+    /**
+     * @return how many documents of the batch were already there
+     */
+    private static int insert(MongoCollection<RawBsonDocument> raw, List<RawBsonDocument> batch, InsertManyOptions options) {
+        try {
+            raw.insertMany(batch, options);
+            return 0;
+        } catch (MongoBulkWriteException e) {
+            List<BulkWriteError> errors = e.getWriteErrors();
+            if (e.getWriteConcernError() != null || errors.stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+            return errors.size();
+        }
+    }
+
+    private List<long[]> runParts(int parts, PartTask task) throws IOException {
+        List<long[]> results = new ArrayList<>(parts);
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, parts)))) {
+            List<Future<long[]>> futures = new ArrayList<>(parts);
+            for (int part = 0; part < parts; part++) {
+                int index = part;
+                futures.add(executor.submit(() -> task.run(index)));
+            }
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Snapshot interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private void report(String action, long documents, long bytes, int parts, long started) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+        log.info("{} {} documents of {} ({} MB compressed, {} parts) in {}s: {} docs/s, {} MB/s",
+                action, documents, collection, String.format("%.1f", bytes / 1e6), parts, String.format("%.1f", seconds),
+                Math.round(documents / seconds), String.format("%.1f", bytes / 1e6 / seconds));
+    }
+
+    String partName(int part) {
+        return String.format("%s-%03d%s", collection, part, PART_SUFFIX);
+    }
+
+    private List<Path> parts(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(collection + "-") && name.endsWith(PART_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PartTask {
+        long[] run(int part) throws IOException;
+    }
+}
@@ -0,0 +1,81 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.Wishlist;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recomputes {@link ProductStats}, {@link TagStats} and {@link TagProductStats} from the wishlists of the active storage layout, for
+ * seeding them on existing data or fixing counters that drifted. Each collection is replaced with {@code $out},
+ * so increments made while it runs are lost; run it with little write traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.stats.rebuild-on-startup", havingValue = "true")
+public class WishlistStatsRebuild implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean embedded;
+
+    public WishlistStatsRebuild(MongoTemplate mongoTemplate, @Value("${wishlist.storage.layout:items}") String layout) {
+        this.mongoTemplate = mongoTemplate;
+        this.embedded = "embedded".equals(layout);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        aggregate(false,
+                context -> new Document("$group", new Document("_id", "$productId")
+                        .append("count", new Document("$sum", 1))),
+                Aggregation.out(mongoTemplate.getCollectionName(ProductStats.class)));
+
+        aggregate(true,
+                context -> new Document("$group", new Document("_id", "$tagTokens")
+                        .append("count", new Document("$sum", 1))),
+                Aggregation.out(mongoTemplate.getCollectionName(TagStats.class)));
+
+        aggregate(true,
+                context -> new Document("$group", new Document("_id", new Document("tag", "$tagTokens").append("productId", "$productId"))
+                        .append("count", new Document("$sum", 1))),
+                context -> new Document("$project", new Document("_id", new Document("$concat", List.of("$_id.tag", ":", "$_id.productId")))
+                        .append("tag", "$_id.tag")
+                        .append("productId", "$_id.productId")
+                        .append("count", 1)),
+                Aggregation.out(mongoTemplate.getCollectionName(TagProductStats.class)));
+    }
+
+    /**
+     * Runs the stages over one document per item, or per item and tag token when {@code perTag}.
+     */
+    private void aggregate(boolean perTag, AggregationOperation... stages) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (embedded) {
+            pipeline.add(Aggregation.unwind("items"));
+            pipeline.add(context -> new Document("$project", new Document("productId", "$items.productId")
+                    .append("tagTokens", "$items.tagTokens")));
+        }
+        if (perTag) {
+            pipeline.add(Aggregation.unwind("tagTokens"));
+        }
+        pipeline.addAll(List.of(stages));
+
+        Aggregation aggregation = Aggregation.newAggregation(pipeline)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        String source = mongoTemplate.getCollectionName(embedded ? CustomerWishlist.class : Wishlist.class);
+        mongoTemplate.aggregate(aggregation, source, Document.class);
+    }
+}
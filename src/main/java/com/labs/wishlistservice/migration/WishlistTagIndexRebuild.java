@@ -0,0 +1,89 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.domain.WishlistTagEntry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsDontMatch;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation.WhenDocumentsMatch;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recreates the {@link WishlistTagEntry} documents from the wishlists of the active storage layout, for seeding
+ * {@code wishlist_by_tag} before turning on {@code wishlist.sharding.enabled} or fixing entries that drifted.
+ * The entries are removed and written again with {@code $merge}, which, unlike {@code $out}, can write to the
+ * sharded collection; entries recorded while it runs are lost, so run it with little write traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "wishlist.sharding.tag-index-rebuild-on-startup", havingValue = "true")
+public class WishlistTagIndexRebuild implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean embedded;
+    private final WishlistKeyFormat keyFormat;
+
+    public WishlistTagIndexRebuild(MongoTemplate mongoTemplate,
+                                   @Value("${wishlist.storage.layout:items}") String layout,
+                                   @Value("${wishlist.storage.key-format:legacy}") WishlistKeyFormat keyFormat) {
+        this.mongoTemplate = mongoTemplate;
+        this.embedded = "embedded".equals(layout);
+        this.keyFormat = keyFormat;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        mongoTemplate.remove(new Query(), WishlistTagEntry.class);
+
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (embedded) {
+            pipeline.add(Aggregation.unwind("items"));
+            pipeline.add(context -> new Document("$project", new Document("_id", keyFormat.idExpression("$_id", "$items.productId"))
+                    .append("customerId", "$_id")
+                    .append("productId", "$items.productId")
+                    .append("tagsCategory", "$items.tagsCategory")
+                    .append("tagTokens", "$items.tagTokens")));
+        }
+        pipeline.add(context -> new Document("$match", new Document("tagTokens.0", new Document("$exists", true))));
+        // One document per token, with the token before it in the item's sorted tokens.
+        pipeline.add(context -> new Document("$set", new Document("sorted",
+                new Document("$sortArray", new Document("input", "$tagTokens").append("sortBy", 1)))));
+        pipeline.add(context -> new Document("$set", new Document("token", "$sorted")));
+        pipeline.add(context -> new Document("$unwind", new Document("path", "$token").append("includeArrayIndex", "position")));
+        pipeline.add(context -> new Document("$project", new Document("_id", 0)
+                .append("token", 1)
+                .append("prev", new Document("$cond", List.of(
+                        new Document("$gt", List.of("$position", 0)),
+                        new Document("$arrayElemAt", List.of("$sorted", new Document("$subtract", List.of("$position", 1)))),
+                        "$$REMOVE")))
+                .append("wishlistId", "$_id")
+                .append("customerId", 1)
+                .append("productId", 1)
+                .append("tagsCategory", 1)
+                .append("tagTokens", 1)));
+        pipeline.add(MergeOperation.builder()
+                .intoCollection(mongoTemplate.getCollectionName(WishlistTagEntry.class))
+                .on("token", "wishlistId")
+                .whenMatched(WhenDocumentsMatch.keepExistingDocument())
+                .whenDocumentsDontMatch(WhenDocumentsDontMatch.insertNewDocument())
+                .build());
+
+        Aggregation aggregation = Aggregation.newAggregation(pipeline)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        String source = mongoTemplate.getCollectionName(embedded ? CustomerWishlist.class : Wishlist.class);
+        mongoTemplate.aggregate(aggregation, source, Document.class);
+    }
+}
@@ -0,0 +1,293 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.infra.ReadRouting;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * One {@link CustomerWishlist} document per customer. Reads are a single {@code _id} fetch and every write
+ * is one atomic update guarded by the size of the {@code items} array, so no counter is involved. The same update
+ * replaces the {@code version} of the document.
+ * Removals return the previous document, which gives the tags to decrement in {@link WishlistStatsRepository} and
+ * the entries to drop from the {@link WishlistTagIndex}; both are written by the {@link WishlistChangeRecorder}.
+ */
+@Repository
+@ConditionalOnProperty(name = "wishlist.storage.layout", havingValue = "embedded")
+public class EmbeddedWishlistStore implements WishlistStore {
+
+    private static final String ITEMS = "items";
+    private static final String PRODUCT_ID = "items.productId";
+    private static final String TAG_TOKENS = "items.tagTokens";
+    private static final String VERSION = "version";
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRouting readRouting;
+    private final WishlistChangeRecorder recorder;
+    private final WishlistTagIndex tagIndex;
+    private final WishlistKeyFormat keyFormat;
+
+    public EmbeddedWishlistStore(MongoTemplate mongoTemplate, ReadRouting readRouting, WishlistChangeRecorder recorder,
+                                 WishlistTagIndex tagIndex,
+                                 @Value("${wishlist.storage.key-format:legacy}") WishlistKeyFormat keyFormat) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.recorder = recorder;
+        this.tagIndex = tagIndex;
+        this.keyFormat = keyFormat;
+    }
+
+    @Override
+    public boolean add(Wishlist wishlist, int limit) {
+        String customerId = wishlist.getCustomerId();
+        readRouting.recordWrite(customerId);
+        Query query = Query.query(Criteria.where("_id").is(customerId)
+                .and(PRODUCT_ID).ne(wishlist.getProductId())
+                .and(ITEMS + "." + (limit - 1)).exists(false));
+        Update update = new Update().push(ITEMS, item(wishlist)).set(VERSION, WishlistQueries.newVersion());
+        try {
+            try {
+                mongoTemplate.upsert(query, update, CustomerWishlist.class);
+            } catch (DuplicateKeyException e) {
+                // A concurrent first add may have created the document after the filter missed it: try once more.
+                mongoTemplate.upsert(query, update, CustomerWishlist.class);
+            }
+        } catch (DuplicateKeyException e) {
+            // The document exists but did not match: the product is already there or the array is full.
+            if (mongoTemplate.exists(byProduct(customerId, wishlist.getProductId()), CustomerWishlist.class))
+                throw e;
+            return false;
+        }
+        recorded(List.of(wishlist), 1);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String customerId, String productId) {
+        readRouting.recordWrite(customerId);
+        Document pull = new Document("$pull", new Document(ITEMS, new Document("productId", productId)))
+                .append("$set", new Document(VERSION, WishlistQueries.newVersion()));
+        Document before = collection().findOneAndUpdate(new Document("_id", customerId).append(PRODUCT_ID, productId), pull,
+                new FindOneAndUpdateOptions()
+                        .projection(new Document(ITEMS, new Document("$elemMatch", new Document("productId", productId))))
+                        .returnDocument(ReturnDocument.BEFORE));
+        if (before == null)
+            return false;
+
+        recorded(items(customerId, before), -1);
+        return true;
+    }
+
+    @Override
+    public Map<String, Status> addAll(String customerId, List<Wishlist> wishlists, int limit) {
+        readRouting.recordWrite(customerId);
+        // items = first max(limit, size) of items + the new products, keeping the order of the request.
+        Document current = new Document("$ifNull", List.of("$" + ITEMS, List.of()));
+        Document fresh = new Document("$filter", new Document("input", new Document("$literal", wishlists.stream().map(EmbeddedWishlistStore::item).toList()))
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this.productId", new Document("$ifNull", List.of("$" + PRODUCT_ID, List.of()))))))));
+        Document capped = new Document("$slice", List.of(
+                new Document("$concatArrays", List.of(current, fresh)),
+                new Document("$max", List.of(limit, new Document("$size", current)))));
+        List<Document> update = List.of(new Document("$set", new Document(ITEMS, capped).append(VERSION, WishlistQueries.newVersion())));
+
+        Document before = collection().findOneAndUpdate(new Document("_id", customerId), update, new FindOneAndUpdateOptions()
+                .upsert(true)
+                .projection(new Document(PRODUCT_ID, 1))
+                .returnDocument(ReturnDocument.BEFORE));
+
+        // Replays the update on the previous state, which is exactly what the server applied.
+        Set<String> present = productIds(before);
+        int free = limit - present.size();
+        Map<String, Status> statuses = new HashMap<>();
+        List<Wishlist> added = new ArrayList<>();
+        for (Wishlist wishlist : wishlists) {
+            Status status;
+            if (present.contains(wishlist.getProductId())) {
+                status = Status.DUPLICATE;
+            } else if (free-- > 0) {
+                status = Status.ADDED;
+                added.add(wishlist);
+            } else {
+                status = Status.LIMIT_EXCEEDED;
+            }
+            statuses.put(wishlist.getProductId(), status);
+        }
+        recorded(added, 1);
+        return statuses;
+    }
+
+    @Override
+    public Set<String> removeAll(String customerId, Collection<String> productIds) {
+        readRouting.recordWrite(customerId);
+        Document pull = new Document("$pull", new Document(ITEMS, new Document("productId", new Document("$in", List.copyOf(productIds)))))
+                .append("$set", new Document(VERSION, WishlistQueries.newVersion()));
+        Document before = collection().findOneAndUpdate(new Document("_id", customerId), pull, new FindOneAndUpdateOptions()
+                .projection(new Document(PRODUCT_ID, 1).append("items.tagsCategory", 1))
+                .returnDocument(ReturnDocument.BEFORE));
+
+        List<Wishlist> removed = items(customerId, before).stream()
+                .filter(wishlist -> productIds.contains(wishlist.getProductId()))
+                .toList();
+        recorded(removed, -1);
+        Set<String> removedIds = new HashSet<>();
+        removed.forEach(wishlist -> removedIds.add(wishlist.getProductId()));
+        return removedIds;
+    }
+
+    @Override
+    public List<Wishlist> findByCustomerId(String customerId) {
+        CustomerWishlist wishlist = readRouting.forCustomer(customerId).findById(customerId, CustomerWishlist.class);
+        return wishlist == null ? List.of() : wishlist.toWishlists();
+    }
+
+    /**
+     * The version and the items come from the same document, so the read can be routed like any other.
+     */
+    @Override
+    public VersionedWishlists findVersionedByCustomerId(String customerId) {
+        CustomerWishlist wishlist = readRouting.forCustomer(customerId).findById(customerId, CustomerWishlist.class);
+        return wishlist == null ? new VersionedWishlists(null, List.of()) : new VersionedWishlists(wishlist.getVersion(), wishlist.toWishlists());
+    }
+
+    @Override
+    public String findVersion(String customerId) {
+        Query query = Query.query(Criteria.where("_id").is(customerId));
+        query.fields().include(VERSION);
+        Document wishlist = mongoTemplate.findOne(query, Document.class, collectionName());
+        return wishlist == null ? null : wishlist.getString(VERSION);
+    }
+
+    @Override
+    public boolean exists(String customerId, String productId) {
+        return readRouting.forCustomer(customerId).exists(byProduct(customerId, productId), CustomerWishlist.class);
+    }
+
+    @Override
+    public Set<String> findExistingProductIds(String customerId, Collection<String> productIds) {
+        Query query = Query.query(Criteria.where("_id").is(customerId));
+        query.fields().include(PRODUCT_ID);
+        Set<String> existing = productIds(readRouting.forCustomer(customerId).findOne(query, Document.class, collectionName()));
+        existing.retainAll(productIds);
+        return existing;
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokens(List<String> tokens) {
+        if (tagIndex.isEnabled())
+            return tagIndex.findByTagTokens(tokens);
+        Aggregation aggregation = byTagTokens(WishlistQueries.tagTokens(TAG_TOKENS, tokens));
+        return readRouting.forQueries().aggregate(aggregation, collectionName(), Wishlist.class).getMappedResults();
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokensAfter(List<String> tokens, String afterId, int limit) {
+        if (tagIndex.isEnabled())
+            return tagIndex.findByTagTokensAfter(tokens, afterId, limit);
+        Criteria criteria = WishlistQueries.tagTokens(TAG_TOKENS, tokens);
+        List<AggregationOperation> stages = new ArrayList<>(byTagTokens(criteria).getPipeline().getOperations());
+        if (afterId != null) {
+            stages.add(Aggregation.match(Criteria.where("_id").gt(afterId)));
+        }
+        stages.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+        stages.add(Aggregation.limit(limit));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return readRouting.forQueries().aggregate(aggregation, collectionName(), Wishlist.class).getMappedResults();
+    }
+
+    @Override
+    public String pageCursor(List<String> tokens, Wishlist last) {
+        return tagIndex.isEnabled() ? tagIndex.pageCursor(tokens, last) : last.getId();
+    }
+
+    @Override
+    public Stream<Wishlist> streamByTagTokens(List<String> tokens) {
+        if (tagIndex.isEnabled())
+            return tagIndex.streamByTagTokens(tokens);
+        Aggregation aggregation = byTagTokens(WishlistQueries.tagTokens(TAG_TOKENS, tokens))
+                .withOptions(AggregationOptions.builder().cursorBatchSize(STREAM_BATCH_SIZE).build());
+        return readRouting.forQueries().aggregateStream(aggregation, collectionName(), Wishlist.class);
+    }
+
+    /**
+     * Customers holding a matching item (served by the {@code items.tagTokens} index), flattened back into
+     * item-shaped documents with the same ids the {@code items} layout uses.
+     */
+    private Aggregation byTagTokens(Criteria criteria) {
+        Document id = keyFormat.idExpression("$_id", "$" + PRODUCT_ID);
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.unwind(ITEMS),
+                Aggregation.match(criteria),
+                context -> new Document("$project", new Document("_id", id)
+                        .append("customerId", "$_id")
+                        .append("productId", "$" + PRODUCT_ID)
+                        .append("tagsCategory", "$items.tagsCategory")
+                        .append("tagTokens", "$" + TAG_TOKENS))
+        );
+    }
+
+    /**
+     * Gives the items the ids tag searches return in this layout before passing them on to the stats and the tag index.
+     */
+    private void recorded(List<Wishlist> wishlists, int delta) {
+        wishlists.forEach(wishlist -> wishlist.setId(keyFormat.id(wishlist.getCustomerId(), wishlist.getProductId())));
+        recorder.record(wishlists, delta);
+    }
+
+    private static Query byProduct(String customerId, String productId) {
+        return Query.query(Criteria.where("_id").is(customerId).and(PRODUCT_ID).is(productId));
+    }
+
+    private static Document item(Wishlist wishlist) {
+        return new Document("productId", wishlist.getProductId())
+                .append("tagsCategory", wishlist.getTagsCategory())
+                .append("tagTokens", wishlist.getTagTokens());
+    }
+
+    private static List<Wishlist> items(String customerId, Document wishlist) {
+        if (wishlist == null)
+            return List.of();
+        return wishlist.getList(ITEMS, Document.class, List.of()).stream()
+                .map(item -> new Wishlist(customerId, item.getString("productId"), item.getString("tagsCategory")))
+                .toList();
+    }
+
+    private static Set<String> productIds(Document wishlist) {
+        Set<String> productIds = new HashSet<>();
+        if (wishlist != null) {
+            wishlist.getList(ITEMS, Document.class, List.of()).forEach(item -> productIds.add(item.getString("productId")));
+        }
+        return productIds;
+    }
+
+    private String collectionName() {
+        return mongoTemplate.getCollectionName(CustomerWishlist.class);
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(collectionName());
+    }
+}
@@ -0,0 +1,168 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * One document per item in the {@code wishlist} collection; the limit is enforced by the
+ * {@link com.labs.wishlistservice.domain.WishlistCounter} of the customer. New items get their {@code _id} in
+ * {@code wishlist.storage.key-format}; everything else goes through the {@code customerId + productId} index.
+ * Items that were actually added or removed are passed on to the {@link WishlistChangeRecorder}, which updates the
+ * stats and the {@link WishlistTagIndex} off the request path; the tag index also serves the tag searches when enabled. The version of the list is kept on the
+ * counter and replaced by every slot update.
+ */
+@Repository
+@ConditionalOnProperty(name = "wishlist.storage.layout", havingValue = "items", matchIfMissing = true)
+public class ItemWishlistStore implements WishlistStore {
+
+    private final WishlistRepository wishlistRepository;
+    private final WishlistChangeRecorder recorder;
+    private final WishlistTagIndex tagIndex;
+    private final WishlistKeyFormat keyFormat;
+
+    public ItemWishlistStore(WishlistRepository wishlistRepository, WishlistChangeRecorder recorder, WishlistTagIndex tagIndex,
+                             @Value("${wishlist.storage.key-format:legacy}") WishlistKeyFormat keyFormat) {
+        this.wishlistRepository = wishlistRepository;
+        this.recorder = recorder;
+        this.tagIndex = tagIndex;
+        this.keyFormat = keyFormat;
+    }
+
+    @Override
+    public boolean add(Wishlist wishlist, int limit) {
+        if (!wishlistRepository.reserveSlot(wishlist.getCustomerId(), limit))
+            return false;
+
+        try {
+            wishlistRepository.insert(withKey(wishlist));
+        } catch (DuplicateKeyException e) {
+            // Only a duplicate is known not to be stored; after any other error the insert may have gone through.
+            wishlistRepository.releaseSlot(wishlist.getCustomerId());
+            throw e;
+        }
+        recorded(List.of(wishlist), 1);
+        return true;
+    }
+
+    @Override
+    public boolean remove(String customerId, String productId) {
+        Wishlist removed = wishlistRepository.deleteByCustomerIdAndProductId(customerId, productId);
+        if (removed == null)
+            return false;
+
+        wishlistRepository.releaseSlot(customerId);
+        recorded(List.of(removed), -1);
+        return true;
+    }
+
+    @Override
+    public Map<String, Status> addAll(String customerId, List<Wishlist> wishlists, int limit) {
+        int granted = wishlistRepository.reserveSlots(customerId, wishlists.size(), limit);
+        List<Wishlist> accepted = wishlists.subList(0, granted);
+
+        accepted.forEach(this::withKey);
+        Set<String> duplicates = wishlistRepository.insertUnordered(accepted);
+        wishlistRepository.releaseSlots(customerId, duplicates.size());
+        recorded(accepted.stream().filter(wishlist -> !duplicates.contains(wishlist.getId())).toList(), 1);
+
+        Map<String, Status> statuses = new HashMap<>();
+        for (int i = 0; i < wishlists.size(); i++) {
+            Wishlist wishlist = wishlists.get(i);
+            Status status;
+            if (i >= granted) {
+                status = Status.LIMIT_EXCEEDED;
+            } else if (duplicates.contains(wishlist.getId())) {
+                status = Status.DUPLICATE;
+            } else {
+                status = Status.ADDED;
+            }
+            statuses.put(wishlist.getProductId(), status);
+        }
+        return statuses;
+    }
+
+    @Override
+    public Set<String> removeAll(String customerId, Collection<String> productIds) {
+        // Read on the primary: the items found here are the ones whose tags get decremented.
+        List<Wishlist> existing = wishlistRepository.findByCustomerIdAndProductIdIn(customerId, productIds);
+        if (existing.isEmpty())
+            return Set.of();
+
+        Set<String> existingIds = new HashSet<>();
+        existing.forEach(wishlist -> existingIds.add(wishlist.getProductId()));
+        wishlistRepository.releaseSlots(customerId, wishlistRepository.removeByCustomerIdAndProductIdIn(customerId, existingIds).intValue());
+        recorded(existing, -1);
+        return existingIds;
+    }
+
+    @Override
+    public List<Wishlist> findByCustomerId(String customerId) {
+        return wishlistRepository.findByCustomerId(customerId);
+    }
+
+    @Override
+    public VersionedWishlists findVersionedByCustomerId(String customerId) {
+        return wishlistRepository.findVersionedByCustomerId(customerId);
+    }
+
+    @Override
+    public String findVersion(String customerId) {
+        return wishlistRepository.findVersion(customerId);
+    }
+
+    @Override
+    public boolean exists(String customerId, String productId) {
+        return wishlistRepository.existsByCustomerIdAndProductId(customerId, productId);
+    }
+
+    @Override
+    public Set<String> findExistingProductIds(String customerId, Collection<String> productIds) {
+        return new HashSet<>(wishlistRepository.findExistingProductIds(customerId, productIds));
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokens(List<String> tokens) {
+        return tagIndex.isEnabled() ? tagIndex.findByTagTokens(tokens) : wishlistRepository.findByTagTokens(tokens);
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokensAfter(List<String> tokens, String afterId, int limit) {
+        return tagIndex.isEnabled()
+                ? tagIndex.findByTagTokensAfter(tokens, afterId, limit)
+                : wishlistRepository.findByTagTokensAfter(tokens, afterId, limit);
+    }
+
+    @Override
+    public String pageCursor(List<String> tokens, Wishlist last) {
+        return tagIndex.isEnabled() ? tagIndex.pageCursor(tokens, last) : last.getId();
+    }
+
+    @Override
+    public Stream<Wishlist> streamByTagTokens(List<String> tokens) {
+        return tagIndex.isEnabled() ? tagIndex.streamByTagTokens(tokens) : wishlistRepository.streamByTagTokens(tokens);
+    }
+
+    /**
+     * Passes the items a write actually added ({@code delta > 0}) or removed on to the stats and the tag index,
+     * which are written off the request path.
+     */
+    void recorded(List<Wishlist> wishlists, int delta) {
+        recorder.record(wishlists, delta);
+    }
+
+    Wishlist withKey(Wishlist wishlist) {
+        if (keyFormat != WishlistKeyFormat.LEGACY) {
+            wishlist.setId(keyFormat.id(wishlist.getCustomerId(), wishlist.getProductId()));
+        }
+        return wishlist;
+    }
+}
@@ -0,0 +1,14 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveWishlistRepository extends ReactiveMongoRepository<Wishlist, String>, ReactiveWishlistRepositoryCustom {
+    Mono<Wishlist> deleteByCustomerIdAndProductId(String customerId, String productId);
+
+    Flux<Wishlist> findByCustomerId(String customerId);
+
+    Mono<Boolean> existsByCustomerIdAndProductId(String customerId, String productId);
+}
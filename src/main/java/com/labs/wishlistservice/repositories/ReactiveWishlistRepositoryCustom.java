@@ -0,0 +1,19 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link WishlistRepositoryCustom}.
+ */
+public interface ReactiveWishlistRepositoryCustom {
+
+    Mono<Boolean> reserveSlot(String customerId, int limit);
+
+    Mono<Void> releaseSlot(String customerId);
+
+    Flux<Wishlist> findByTagTokens(List<String> tokens);
+}
@@ -0,0 +1,59 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class ReactiveWishlistRepositoryCustomImpl implements ReactiveWishlistRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveWishlistRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Mono<Boolean> reserveSlot(String customerId, int limit) {
+        Query counter = Query.query(Criteria.where("_id").is(customerId));
+        return takeFreeSlot(customerId, limit)
+                .flatMap(taken -> taken ? Mono.just(true) : reactiveMongoTemplate.exists(counter, WishlistCounter.class)
+                        .flatMap(exists -> exists ? Mono.just(false) : seedCounter(customerId, limit)));
+    }
+
+    /**
+     * Creates a missing counter from the items the customer already holds, taking a slot when one is free.
+     */
+    private Mono<Boolean> seedCounter(String customerId, int limit) {
+        return reactiveMongoTemplate.count(Query.query(Criteria.where("customerId").is(customerId)), Wishlist.class)
+                .flatMap(held -> held >= limit
+                        ? reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(customerId)), WishlistQueries.seed(held), WishlistCounter.class)
+                                .thenReturn(false)
+                        : reactiveMongoTemplate.upsert(WishlistQueries.freeSlot(customerId, limit), WishlistQueries.seededIncrement(held, 1), WishlistCounter.class)
+                                .thenReturn(true)
+                                // A concurrent first add created the counter after the filter missed it; the counter now decides.
+                                .onErrorResume(DuplicateKeyException.class, e -> takeFreeSlot(customerId, limit)));
+    }
+
+    private Mono<Boolean> takeFreeSlot(String customerId, int limit) {
+        return reactiveMongoTemplate.updateFirst(WishlistQueries.freeSlot(customerId, limit), WishlistQueries.increment(1), WishlistCounter.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Mono<Void> releaseSlot(String customerId) {
+        return reactiveMongoTemplate.updateFirst(WishlistQueries.takenSlot(customerId), WishlistQueries.increment(-1), WishlistCounter.class)
+                .then();
+    }
+
+    @Override
+    public Flux<Wishlist> findByTagTokens(List<String> tokens) {
+        return reactiveMongoTemplate.find(Query.query(WishlistQueries.tagTokens(tokens)), Wishlist.class);
+    }
+}
@@ -0,0 +1,115 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Passes the items the stores added or removed on to the {@link WishlistStatsRepository} and the
+ * {@link WishlistTagIndex} off the request path. Changes are written in the order they were recorded by one thread,
+ * which merges consecutive changes in the same direction, so a burst of adds costs one bulk write per collection
+ * instead of four per add.
+ * <p>
+ * At most {@code wishlist.stats.queue-capacity} changes wait to be written; past that, writers block until the
+ * thread catches up. Pending changes are written on shutdown.
+ */
+@Slf4j
+@Repository
+public class WishlistChangeRecorder {
+
+    private record Change(Collection<Wishlist> wishlists, int delta) {
+    }
+
+    private final WishlistStatsRepository stats;
+    private final WishlistTagIndex tagIndex;
+    private final BlockingQueue<Change> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wishlist-change-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WishlistChangeRecorder(WishlistStatsRepository stats, WishlistTagIndex tagIndex,
+                                  @Value("${wishlist.stats.queue-capacity:10000}") int capacity) {
+        this.stats = stats;
+        this.tagIndex = tagIndex;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queues the items a write actually added ({@code delta > 0}) or removed.
+     */
+    public void record(Collection<Wishlist> wishlists, int delta) {
+        if (wishlists.isEmpty())
+            return;
+
+        try {
+            queue.put(new Change(wishlists, delta));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing the stats of {} items", wishlists.size());
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    /**
+     * Waits until every change recorded before this call is written.
+     */
+    public void flush() {
+        try {
+            worker.submit(this::drain).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Could not write the queued stats", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        worker.shutdown();
+    }
+
+    /**
+     * Runs on the worker thread only, so changes are written in the order they were queued.
+     */
+    private void drain() {
+        scheduled.set(false);
+        List<Change> changes = new ArrayList<>();
+        queue.drainTo(changes);
+
+        List<Wishlist> batch = new ArrayList<>();
+        int delta = 0;
+        for (Change change : changes) {
+            if (change.delta() != delta) {
+                write(batch, delta);
+                batch = new ArrayList<>();
+                delta = change.delta();
+            }
+            batch.addAll(change.wishlists());
+        }
+        write(batch, delta);
+    }
+
+    private void write(List<Wishlist> batch, int delta) {
+        if (batch.isEmpty())
+            return;
+
+        // Both log and swallow their own failures; drift is fixed by their rebuild-on-startup options.
+        stats.record(batch, delta);
+        tagIndex.record(batch, delta);
+    }
+}
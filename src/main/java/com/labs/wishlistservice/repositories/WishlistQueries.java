@@ -0,0 +1,82 @@
+package com.labs.wishlistservice.repositories;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Queries shared by the blocking and reactive repository implementations.
+ */
+final class WishlistQueries {
+
+    private WishlistQueries() {
+    }
+
+    /**
+     * Matches the customer's counter only while it is below {@code limit}.
+     */
+    static Query freeSlot(String customerId, int limit) {
+        return Query.query(Criteria.where("_id").is(customerId).and("count").lt(limit));
+    }
+
+    static Query takenSlot(String customerId) {
+        return Query.query(Criteria.where("_id").is(customerId).and("count").gt(0));
+    }
+
+    /**
+     * Moves the counter by {@code delta} and replaces the version in the same write, so the version can never miss a
+     * slot change.
+     */
+    static Update increment(int delta) {
+        return new Update().inc("count", delta).set("version", newVersion());
+    }
+
+    /**
+     * {@code count + delta}, starting from {@code seed} when the counter does not exist yet.
+     */
+    static AggregationUpdate seededIncrement(long seed, int delta) {
+        return AggregationUpdate.update()
+                .set("count").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("count").then(seed)).add(delta))
+                .set("version").toValue(newVersion());
+    }
+
+    /**
+     * Creates a missing counter holding {@code count} items; an existing one is left as it is.
+     */
+    static Update seed(long count) {
+        return new Update().setOnInsert("count", count).setOnInsert("version", newVersion());
+    }
+
+    /**
+     * Fresh value for the {@code version} of a customer's wishlist. Unique rather than incremented, so a version never
+     * comes back after a layout migration or a snapshot restore resets the documents.
+     */
+    static String newVersion() {
+        return new ObjectId().toHexString();
+    }
+
+    static Criteria tagTokens(List<String> tokens) {
+        return tagTokens("tagTokens", tokens);
+    }
+
+    static Criteria tagTokens(String field, List<String> tokens) {
+        // Anchored, case-sensitive prefixes on the lowercase tokens turn into index range scans.
+        return new Criteria().andOperator(tokens.stream()
+                .map(token -> Criteria.where(field).regex("^" + token))
+                .toArray(Criteria[]::new));
+    }
+
+    /**
+     * The longest token, the most selective one.
+     */
+    static String drivingToken(List<String> tokens) {
+        return tokens.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+    }
+}
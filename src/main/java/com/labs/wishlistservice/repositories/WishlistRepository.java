@@ -2,22 +2,21 @@ package com.labs.wishlistservice.repositories;
 
 import com.labs.wishlistservice.domain.Wishlist;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface WishlistRepository extends MongoRepository<Wishlist, String> {
-    Long countByCustomerId(String customerId);
+public interface WishlistRepository extends MongoRepository<Wishlist, String>, WishlistRepositoryCustom {
+    /**
+     * Removes the item with {@code findAndRemove}, so the caller gets its tags back in the same round trip.
+     */
+    Wishlist deleteByCustomerIdAndProductId(String customerId, String productId);
 
-    List<Wishlist> findByCustomerId(String customerId);
+    Wishlist findByCustomerIdAndProductId(String customerId, String productId);
 
-    Boolean existsByCustomerId(String customerId);
+    List<Wishlist> findByCustomerIdAndProductIdIn(String customerId, Collection<String> productIds);
 
-    Boolean existsByCustomerIdAndProductId(String customerId, String productId);
+    Long removeByCustomerIdAndProductId(String customerId, String productId);
 
-    @Query(value = "{ 'tagsCategory': { $regex: ?0, $options: 'i' } }", exists = true)
-    Boolean existsByTagsCategory(String tag);
-
-    @Query("{ 'tagsCategory': { $regex: ?0, $options: 'i' } }")
-    List<Wishlist> findByTagsCategory(String texto);
+    Long removeByCustomerIdAndProductIdIn(String customerId, Collection<String> productIds);
 }
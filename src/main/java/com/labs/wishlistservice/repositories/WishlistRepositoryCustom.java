@@ -0,0 +1,88 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Queries written against {@link org.springframework.data.mongodb.core.MongoTemplate}. Read-only ones are routed by
+ * {@link com.labs.wishlistservice.infra.ReadRouting}; the rest run on the primary.
+ */
+public interface WishlistRepositoryCustom {
+
+    /**
+     * Atomically takes one of the customer's wishlist slots. Like every slot update below, it also replaces the
+     * version of the customer's wishlist in the same write.
+     *
+     * @return {@code false} when the customer already holds {@code limit} items
+     */
+    boolean reserveSlot(String customerId, int limit);
+
+    /**
+     * Gives back a slot taken by {@link #reserveSlot(String, int)}.
+     */
+    void releaseSlot(String customerId);
+
+    /**
+     * Atomically takes up to {@code requested} slots, never going past {@code limit}. A missing counter is first
+     * seeded from the items the customer already holds, like {@link #reserveSlot(String, int)}.
+     *
+     * @return how many slots were granted, between 0 and {@code requested}
+     */
+    int reserveSlots(String customerId, int requested, int limit);
+
+    void releaseSlots(String customerId, int count);
+
+    /**
+     * Reads the items where {@link com.labs.wishlistservice.infra.ReadRouting#forCustomer(String)} sends them. On the
+     * primary the counter is read first: slots are taken before items are inserted and given back after they are
+     * deleted, so the version is only returned when the counter holds as many items as were read. Items read on a
+     * secondary come without a version, since a lagging list with the same count would be labelled as current.
+     */
+    VersionedWishlists findVersionedByCustomerId(String customerId);
+
+    /**
+     * @return the version of the customer's wishlist read on the primary, or {@code null} when it was never set
+     */
+    String findVersion(String customerId);
+
+    /**
+     * Inserts all items in one unordered bulk write; items whose id already exists are skipped.
+     *
+     * @return ids of the items rejected as duplicates
+     */
+    Set<String> insertUnordered(List<Wishlist> wishlists);
+
+    List<Wishlist> findByCustomerId(String customerId);
+
+    Boolean existsByCustomerIdAndProductId(String customerId, String productId);
+
+    /**
+     * @return the given product ids the customer holds, read from the {@code customerId + productId} index only
+     */
+    List<String> findExistingProductIds(String customerId, Collection<String> productIds);
+
+    /**
+     * Items holding, for every given token, a tag token that starts with it.
+     * Tokens must come from {@link com.labs.wishlistservice.domain.TagTokenizer} so the prefix match
+     * is served by the {@code tagTokens} index.
+     */
+    List<Wishlist> findByTagTokens(List<String> tokens);
+
+    /**
+     * Keyset page of {@link #findByTagTokens(List)} ordered by {@code _id}, starting after {@code afterId}
+     * ({@code null} for the first page). The {@code _id} order cannot come from the multikey {@code tagTokens_id}
+     * index after a prefix range, so the server sorts the matches keeping only the top {@code limit} in memory;
+     * every item matching the prefix is still examined.
+     */
+    List<Wishlist> findByTagTokensAfter(List<String> tokens, String afterId, int limit);
+
+    /**
+     * Cursor-backed stream of {@link #findByTagTokens(List)}; must be closed by the caller.
+     */
+    Stream<Wishlist> streamByTagTokens(List<String> tokens);
+}
@@ -0,0 +1,200 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import com.labs.wishlistservice.infra.ReadRouting;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class WishlistRepositoryCustomImpl implements WishlistRepositoryCustom {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRouting readRouting;
+
+    public WishlistRepositoryCustomImpl(MongoTemplate mongoTemplate, ReadRouting readRouting) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+    }
+
+    @Override
+    public boolean reserveSlot(String customerId, int limit) {
+        // Every write path moves the counter first, so this is where recent writers are recorded.
+        readRouting.recordWrite(customerId);
+        if (takeFreeSlot(customerId, limit))
+            return true;
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(customerId)), WishlistCounter.class))
+            return false;
+
+        // No counter yet: seed it from the items the customer already holds, so items saved before the counter count.
+        long held = countHeld(customerId);
+        if (held >= limit) {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(customerId)), WishlistQueries.seed(held), WishlistCounter.class);
+            return false;
+        }
+        try {
+            mongoTemplate.upsert(WishlistQueries.freeSlot(customerId, limit), WishlistQueries.seededIncrement(held, 1), WishlistCounter.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // A concurrent first add created the counter after the filter missed it; the counter now decides.
+            return takeFreeSlot(customerId, limit);
+        }
+    }
+
+    private long countHeld(String customerId) {
+        return mongoTemplate.count(Query.query(Criteria.where("customerId").is(customerId)), Wishlist.class);
+    }
+
+    private boolean takeFreeSlot(String customerId, int limit) {
+        return mongoTemplate.updateFirst(WishlistQueries.freeSlot(customerId, limit), WishlistQueries.increment(1), WishlistCounter.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public void releaseSlot(String customerId) {
+        readRouting.recordWrite(customerId);
+        mongoTemplate.updateFirst(WishlistQueries.takenSlot(customerId), WishlistQueries.increment(-1), WishlistCounter.class);
+    }
+
+    @Override
+    public int reserveSlots(String customerId, int requested, int limit) {
+        readRouting.recordWrite(customerId);
+        Query counterKey = Query.query(Criteria.where("_id").is(customerId));
+        if (!mongoTemplate.exists(counterKey, WishlistCounter.class)) {
+            // Seed a missing counter from the items already held, as reserveSlot does; a concurrent seed wins untouched.
+            long held = countHeld(customerId);
+            if (held > 0) {
+                mongoTemplate.upsert(counterKey, WishlistQueries.seed(held), WishlistCounter.class);
+            }
+        }
+        // count = max(count, min(limit, count + requested)): grants what fits and never lowers a counter already past the limit.
+        Document current = new Document("$ifNull", List.of("$count", 0));
+        Document capped = new Document("$min", List.of(limit, new Document("$add", List.of(current, requested))));
+        List<Document> update = List.of(new Document("$set", new Document("count", new Document("$max", List.of(current, capped)))
+                .append("version", WishlistQueries.newVersion())));
+
+        Document before = mongoTemplate.getCollection(mongoTemplate.getCollectionName(WishlistCounter.class))
+                .findOneAndUpdate(new Document("_id", customerId), update, new FindOneAndUpdateOptions()
+                        .upsert(true)
+                        .projection(new Document("count", 1))
+                        .returnDocument(ReturnDocument.BEFORE));
+
+        long previous = before == null ? 0 : before.get("count", Number.class).longValue();
+        return (int) Math.max(0, Math.min(requested, limit - previous));
+    }
+
+    @Override
+    public void releaseSlots(String customerId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        readRouting.recordWrite(customerId);
+        // count = max(0, count - released) in one update, so a counter that drifted below the released items is clamped
+        // at zero without overwriting slots reserved in between.
+        Document remaining = new Document("$subtract", List.of(new Document("$ifNull", List.of("$count", 0)), count));
+        List<Document> update = List.of(new Document("$set", new Document("count", new Document("$max", List.of(0, remaining)))
+                .append("version", WishlistQueries.newVersion())));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(WishlistCounter.class))
+                .updateOne(new Document("_id", customerId), update);
+    }
+
+    @Override
+    public VersionedWishlists findVersionedByCustomerId(String customerId) {
+        List<Wishlist> wishlists;
+        WishlistCounter counter = null;
+        if (readRouting.readsPrimary(customerId)) {
+            counter = mongoTemplate.findById(customerId, WishlistCounter.class);
+            wishlists = mongoTemplate.find(Query.query(Criteria.where("customerId").is(customerId)), Wishlist.class);
+        } else {
+            wishlists = findByCustomerId(customerId);
+        }
+        boolean settled = counter != null && counter.getCount() == wishlists.size();
+        return new VersionedWishlists(settled ? counter.getVersion() : null, wishlists);
+    }
+
+    @Override
+    public String findVersion(String customerId) {
+        Query query = Query.query(Criteria.where("_id").is(customerId));
+        query.fields().include("version");
+        WishlistCounter counter = mongoTemplate.findOne(query, WishlistCounter.class);
+        return counter == null ? null : counter.getVersion();
+    }
+
+    @Override
+    public Set<String> insertUnordered(List<Wishlist> wishlists) {
+        if (wishlists.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Wishlist.class).insert(wishlists).execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<String> duplicates = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(wishlists.get(error.getIndex()).getId());
+            }
+            return duplicates;
+        }
+    }
+
+    @Override
+    public List<Wishlist> findByCustomerId(String customerId) {
+        return readRouting.forCustomer(customerId).find(Query.query(Criteria.where("customerId").is(customerId)), Wishlist.class);
+    }
+
+    @Override
+    public Boolean existsByCustomerIdAndProductId(String customerId, String productId) {
+        Query query = Query.query(Criteria.where("customerId").is(customerId).and("productId").is(productId));
+        return readRouting.forCustomer(customerId).exists(query, Wishlist.class);
+    }
+
+    @Override
+    public List<String> findExistingProductIds(String customerId, Collection<String> productIds) {
+        Query query = Query.query(Criteria.where("customerId").is(customerId).and("productId").in(productIds));
+        query.fields().include("productId").exclude("_id");
+        return readRouting.forCustomer(customerId).find(query, Document.class, mongoTemplate.getCollectionName(Wishlist.class)).stream()
+                .map(document -> document.getString("productId"))
+                .toList();
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokens(List<String> tokens) {
+        return readRouting.forQueries().find(Query.query(WishlistQueries.tagTokens(tokens)), Wishlist.class);
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokensAfter(List<String> tokens, String afterId, int limit) {
+        Criteria criteria = WishlistQueries.tagTokens(tokens);
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(afterId);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        return readRouting.forQueries().find(query, Wishlist.class);
+    }
+
+    @Override
+    public Stream<Wishlist> streamByTagTokens(List<String> tokens) {
+        return readRouting.forQueries().stream(Query.query(WishlistQueries.tagTokens(tokens)).cursorBatchSize(STREAM_BATCH_SIZE), Wishlist.class);
+    }
+}
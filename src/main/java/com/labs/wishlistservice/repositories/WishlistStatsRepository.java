@@ -0,0 +1,123 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.infra.ReadRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates of the wishlists: {@link TagStats}, {@link TagProductStats} and {@link ProductStats}. The stores call
+ * {@link #record(Collection, int)} with the items a write actually added or removed, and the rankings are read
+ * straight from the {@code count} indexes.
+ */
+@Slf4j
+@Repository
+public class WishlistStatsRepository {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRouting readRouting;
+
+    public WishlistStatsRepository(MongoTemplate mongoTemplate, ReadRouting readRouting) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+    }
+
+    /**
+     * Adds {@code delta} to the counters of every product, tag token and tag/product pair of the given items,
+     * in one unordered bulk write per collection. A failure is logged and not thrown, since the write it follows
+     * already succeeded; counters that drifted are fixed by {@code wishlist.stats.rebuild-on-startup}.
+     */
+    public void record(Collection<Wishlist> wishlists, int delta) {
+        Map<String, Integer> products = new HashMap<>();
+        Map<String, Integer> tags = new HashMap<>();
+        Map<String, Integer> tagProducts = new HashMap<>();
+        for (Wishlist wishlist : wishlists) {
+            products.merge(wishlist.getProductId(), delta, Integer::sum);
+            if (wishlist.getTagTokens() == null)
+                continue;
+            for (String tag : wishlist.getTagTokens()) {
+                tags.merge(tag, delta, Integer::sum);
+                tagProducts.merge(TagProductStats.generateId(tag, wishlist.getProductId()), delta, Integer::sum);
+            }
+        }
+        if (products.isEmpty())
+            return;
+
+        try {
+            BulkOperations productOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductStats.class);
+            products.forEach((productId, change) -> productOps.upsert(byId(productId), new Update().inc("count", change)));
+            productOps.execute();
+            if (tags.isEmpty())
+                return;
+
+            BulkOperations tagOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagStats.class);
+            tags.forEach((tag, change) -> tagOps.upsert(byId(tag), new Update().inc("count", change)));
+            tagOps.execute();
+
+            BulkOperations tagProductOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagProductStats.class);
+            tagProducts.forEach((id, change) -> {
+                int separator = id.indexOf(':');
+                // The tag is the shard key: matching on it targets one shard and sets it on insert.
+                Query query = byId(id).addCriteria(Criteria.where("tag").is(id.substring(0, separator)));
+                Update update = new Update().inc("count", change)
+                        .setOnInsert("productId", id.substring(separator + 1));
+                tagProductOps.upsert(query, update);
+            });
+            tagProductOps.execute();
+        } catch (RuntimeException e) {
+            log.warn("Could not update the stats of {} products", products.size(), e);
+        }
+    }
+
+    /**
+     * Tags held by the most items, most used first.
+     */
+    public List<TagStats> findTopTags(int limit) {
+        Query query = Query.query(Criteria.where("count").gt(0))
+                .with(Sort.by(Sort.Order.desc("count"), Sort.Order.asc("_id")))
+                .limit(limit);
+        return readRouting.forQueries().find(query, TagStats.class);
+    }
+
+    public TagStats findByTag(String tag) {
+        return readRouting.forQueries().findById(tag, TagStats.class);
+    }
+
+    /**
+     * Products held by the most wishlists, most wished first.
+     */
+    public List<ProductStats> findTopProducts(int limit) {
+        Query query = Query.query(Criteria.where("count").gt(0))
+                .with(Sort.by(Sort.Order.desc("count"), Sort.Order.asc("_id")))
+                .limit(limit);
+        return readRouting.forQueries().find(query, ProductStats.class);
+    }
+
+    /**
+     * Products wished the most under {@code tag}, most wished first.
+     */
+    public List<TagProductStats> findTopProducts(String tag, int limit) {
+        Query query = Query.query(Criteria.where("tag").is(tag).and("count").gt(0))
+                .with(Sort.by(Sort.Direction.DESC, "count"))
+                .limit(limit);
+        return readRouting.forQueries().find(query, TagProductStats.class);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+}
@@ -0,0 +1,87 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Persistence layout of the wishlists, picked with {@code wishlist.storage.layout}:
+ * {@code items} (default) keeps one document per item, {@code embedded} one document per customer.
+ */
+public interface WishlistStore {
+
+    /**
+     * Adds the item unless the customer already holds {@code limit} items.
+     *
+     * @return {@code false} when the limit was reached
+     * @throws org.springframework.dao.DuplicateKeyException when the product is already in the wishlist
+     */
+    boolean add(Wishlist wishlist, int limit);
+
+    /**
+     * @return {@code false} when the product was not in the wishlist
+     */
+    boolean remove(String customerId, String productId);
+
+    /**
+     * Adds distinct items of one customer, in order, until the limit is reached.
+     *
+     * @return status of every item keyed by product id: {@code ADDED}, {@code DUPLICATE} or {@code LIMIT_EXCEEDED}
+     */
+    Map<String, Status> addAll(String customerId, List<Wishlist> wishlists, int limit);
+
+    /**
+     * @return the given product ids that were in the wishlist and got removed
+     */
+    Set<String> removeAll(String customerId, Collection<String> productIds);
+
+    List<Wishlist> findByCustomerId(String customerId);
+
+    /**
+     * The customer's items with the version they were read at, or with a {@code null} version when the items cannot
+     * be tied to one, such as while a write is in flight.
+     */
+    VersionedWishlists findVersionedByCustomerId(String customerId);
+
+    /**
+     * Version of the customer's wishlist, replaced by every write that adds or removes items. Read on the primary,
+     * so a version a lagging secondary still holds is never taken as current.
+     *
+     * @return {@code null} when no write set it yet
+     */
+    String findVersion(String customerId);
+
+    boolean exists(String customerId, String productId);
+
+    /**
+     * @return the given product ids that are in the customer's wishlist
+     */
+    Set<String> findExistingProductIds(String customerId, Collection<String> productIds);
+
+    /**
+     * Items holding, for every given token, a tag token that starts with it.
+     */
+    List<Wishlist> findByTagTokens(List<String> tokens);
+
+    /**
+     * Keyset page of {@link #findByTagTokens(List)}, starting after the cursor {@code after} ({@code null} for the
+     * first page).
+     */
+    List<Wishlist> findByTagTokensAfter(List<String> tokens, String after, int limit);
+
+    /**
+     * Cursor to pass to {@link #findByTagTokensAfter(List, String, int)} to resume after {@code last}.
+     */
+    String pageCursor(List<String> tokens, Wishlist last);
+
+    /**
+     * Cursor-backed stream of {@link #findByTagTokens(List)}; must be closed by the caller.
+     */
+    Stream<Wishlist> streamByTagTokens(List<String> tokens);
+}
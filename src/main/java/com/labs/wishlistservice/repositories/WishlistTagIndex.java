@@ -0,0 +1,157 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistTagEntry;
+import com.labs.wishlistservice.infra.ReadRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tag searches served from {@link WishlistTagEntry} documents, enabled with {@code wishlist.sharding.enabled}.
+ * The collection is sharded by {@code token}, so a search reads the chunks of one token range instead of
+ * broadcasting to every shard of the customer-sharded {@code wishlist} collection. The stores call
+ * {@link #record(Collection, int)} with the items a write actually added or removed, next to the stats.
+ */
+@Slf4j
+@Repository
+public class WishlistTagIndex {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final char CURSOR_SEPARATOR = ':';
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRouting readRouting;
+    private final boolean enabled;
+
+    public WishlistTagIndex(MongoTemplate mongoTemplate, ReadRouting readRouting,
+                            @Value("${wishlist.sharding.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRouting = readRouting;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Upserts ({@code delta > 0}) or deletes the entries of the given items in one unordered bulk write, each
+     * targeted by the full shard key. A failure is logged and not thrown, like the stats; entries that drifted
+     * are fixed by {@code wishlist.sharding.tag-index-rebuild-on-startup}.
+     */
+    public void record(Collection<Wishlist> wishlists, int delta) {
+        if (!enabled)
+            return;
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WishlistTagEntry.class);
+        int operations = 0;
+        for (Wishlist wishlist : wishlists) {
+            for (WishlistTagEntry entry : WishlistTagEntry.of(wishlist)) {
+                Query key = Query.query(Criteria.where("token").is(entry.getToken()).and("wishlistId").is(entry.getWishlistId()));
+                if (delta > 0) {
+                    bulk.upsert(key, new Update()
+                            .set("prev", entry.getPrev())
+                            .set("customerId", entry.getCustomerId())
+                            .set("productId", entry.getProductId())
+                            .set("tagsCategory", entry.getTagsCategory())
+                            .set("tagTokens", entry.getTagTokens()));
+                } else {
+                    bulk.remove(key);
+                }
+                operations++;
+            }
+        }
+        if (operations == 0)
+            return;
+
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Could not update {} tag index entries", operations, e);
+        }
+    }
+
+    public List<Wishlist> findByTagTokens(List<String> tokens) {
+        return readRouting.forQueries().find(Query.query(byTagTokens(tokens)), WishlistTagEntry.class).stream()
+                .map(WishlistTagEntry::toWishlist)
+                .toList();
+    }
+
+    /**
+     * Keyset page of {@link #findByTagTokens(List)} in {@code (token, wishlistId)} order, the order of the
+     * {@code token_wishlistId} index, so neither query sorts in memory: the rest of the cursor's token by equality,
+     * then the tokens after it in the prefix range. {@code after} comes from {@link #pageCursor(List, Wishlist)}.
+     */
+    public List<Wishlist> findByTagTokensAfter(List<String> tokens, String after, int limit) {
+        String driving = WishlistQueries.drivingToken(tokens);
+        Criteria range = Criteria.where("token").regex("^" + driving);
+        List<Wishlist> page = new ArrayList<>(limit);
+        int separator = after == null ? -1 : after.indexOf(CURSOR_SEPARATOR);
+        if (separator >= 0) {
+            String token = after.substring(0, separator);
+            Criteria rest = Criteria.where("token").is(token).and("wishlistId").gt(after.substring(separator + 1));
+            page.addAll(findEntries(matching(rest, driving, tokens), Sort.by("wishlistId"), limit));
+            range = range.gt(token);
+        }
+        if (page.size() < limit) {
+            page.addAll(findEntries(matching(range, driving, tokens), Sort.by("token", "wishlistId"), limit - page.size()));
+        }
+        return page;
+    }
+
+    /**
+     * Cursor resuming a page after {@code last}: the token its entry was found under, which is its first token
+     * with the driving prefix, and its id.
+     */
+    public String pageCursor(List<String> tokens, Wishlist last) {
+        String driving = WishlistQueries.drivingToken(tokens);
+        String token = last.getTagTokens().stream()
+                .filter(candidate -> candidate.startsWith(driving))
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        return token + CURSOR_SEPARATOR + last.getId();
+    }
+
+    public Stream<Wishlist> streamByTagTokens(List<String> tokens) {
+        Query query = Query.query(byTagTokens(tokens)).cursorBatchSize(STREAM_BATCH_SIZE);
+        return readRouting.forQueries().stream(query, WishlistTagEntry.class).map(WishlistTagEntry::toWishlist);
+    }
+
+    private List<Wishlist> findEntries(Criteria criteria, Sort sort, int limit) {
+        Query query = Query.query(criteria).with(sort).limit(limit);
+        return readRouting.forQueries().find(query, WishlistTagEntry.class).stream()
+                .map(WishlistTagEntry::toWishlist)
+                .toList();
+    }
+
+    /**
+     * Ranges over the longest token, the most selective one, keeping only the first matching entry of each item;
+     * the other tokens are checked against the copied {@code tagTokens}.
+     */
+    private static Criteria byTagTokens(List<String> tokens) {
+        String driving = WishlistQueries.drivingToken(tokens);
+        return matching(Criteria.where("token").regex("^" + driving), driving, tokens);
+    }
+
+    /**
+     * Adds to a condition on {@code token} the filters shared by every search.
+     */
+    private static Criteria matching(Criteria onToken, String driving, List<String> tokens) {
+        Criteria criteria = onToken.and("prev").not().regex("^" + driving);
+        List<String> others = tokens.stream().filter(token -> !token.equals(driving)).toList();
+        return others.isEmpty() ? criteria : new Criteria().andOperator(criteria, WishlistQueries.tagTokens(others));
+    }
+}
@@ -0,0 +1,407 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.exceptions.TooManyRequestsException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind stage in front of the {@code items} layout, enabled with {@code wishlist.write-behind.enabled}.
+ * Single adds and removes are acknowledged once queued and written every {@code flush-interval} in bulk; an add and
+ * a remove of the same product that meet in the queue cancel out and never reach MongoDB.
+ * <p>
+ * Slots are still reserved on the counter before an add is queued, so the limit holds. Reads of a customer with
+ * queued changes flush them first; tag searches may lag by one interval. Re-adding a product that is already stored
+ * is accepted and its slot given back on flush, since the queue only knows about pending changes. Tag stats and
+ * the tag index are updated on flush, for the writes that reached MongoDB. A failed flush only requeues the changes
+ * that did not reach MongoDB yet: the adds with an error of their own in the unordered bulk insert and the removes.
+ * <p>
+ * The queue holds at most {@code capacity} changes, those being written included. A producer that finds it full
+ * flushes it first and fails if that flush fails, or gets a {@link TooManyRequestsException} when other producers
+ * took the room; either way nothing was queued.
+ */
+@Slf4j
+@Primary
+@Repository
+@ConditionalOnExpression("${wishlist.write-behind.enabled:false} and '${wishlist.storage.layout:items}' == 'items'")
+public class WriteBehindWishlistStore implements WishlistStore {
+
+    private enum Op { ADD, REMOVE }
+
+    /**
+     * {@code retry} marks an add requeued by a failed flush: it may already be stored, so a duplicate key on the next
+     * attempt means written, not a slot to give back.
+     */
+    private record Pending(Op op, Wishlist wishlist, boolean retry) {
+
+        Pending(Op op, Wishlist wishlist) {
+            this(op, wishlist, false);
+        }
+    }
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final ItemWishlistStore store;
+    private final WishlistRepository wishlistRepository;
+    private final int capacity;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wishlist-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<String, Map<String, Pending>> pending = new HashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private int size;
+    private int writing;
+
+    public WriteBehindWishlistStore(ItemWishlistStore store, WishlistRepository wishlistRepository,
+                                    @Value("${wishlist.write-behind.flush-interval:100ms}") Duration flushInterval,
+                                    @Value("${wishlist.write-behind.capacity:10000}") int capacity) {
+        this.store = store;
+        this.wishlistRepository = wishlistRepository;
+        this.capacity = capacity;
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean add(Wishlist wishlist, int limit) {
+        String customerId = wishlist.getCustomerId();
+        String productId = wishlist.getProductId();
+        Pending queued;
+        synchronized (lock) {
+            queued = pendingOf(customerId).get(productId);
+            if (queued != null && queued.op() == Op.REMOVE) {
+                // Removal of a stored item that was never written: keep the item and the slot it holds.
+                dequeue(customerId, productId);
+            }
+        }
+        if (queued != null) {
+            if (queued.op() == Op.ADD)
+                throw duplicate(wishlist);
+            return true;
+        }
+
+        makeRoom();
+        if (!wishlistRepository.reserveSlot(customerId, limit))
+            return false;
+
+        boolean full = false;
+        synchronized (lock) {
+            queued = pendingOf(customerId).get(productId);
+            if (queued == null) {
+                full = !enqueueIfRoom(customerId, productId, new Pending(Op.ADD, wishlist));
+            } else if (queued.op() == Op.REMOVE) {
+                dequeue(customerId, productId);
+            }
+        }
+        if (full || queued != null) {
+            // Lost a race with another change of the same product, or with producers that filled the queue.
+            wishlistRepository.releaseSlot(customerId);
+            if (full)
+                throw queueFull();
+            if (queued.op() == Op.ADD)
+                throw duplicate(wishlist);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(String customerId, String productId) {
+        Pending queued;
+        synchronized (lock) {
+            queued = pendingOf(customerId).get(productId);
+            if (queued != null && queued.op() == Op.ADD) {
+                dequeue(customerId, productId);
+            }
+        }
+        if (queued != null) {
+            if (queued.op() == Op.REMOVE)
+                return false;
+            // Add that was never written: drop it and give its slot back.
+            wishlistRepository.releaseSlot(customerId);
+            return true;
+        }
+
+        awaitWrites(customerId);
+        Wishlist stored = wishlistRepository.findByCustomerIdAndProductId(customerId, productId);
+        if (stored == null)
+            return false;
+
+        makeRoom();
+        boolean full = false;
+        synchronized (lock) {
+            queued = pendingOf(customerId).get(productId);
+            if (queued == null) {
+                full = !enqueueIfRoom(customerId, productId, new Pending(Op.REMOVE, stored));
+            } else if (queued.op() == Op.ADD) {
+                // The stored item still has to go; the add queued meanwhile would only be a duplicate of it.
+                pending.get(customerId).put(productId, new Pending(Op.REMOVE, stored));
+            }
+        }
+        if (full)
+            throw queueFull();
+        if (queued != null) {
+            if (queued.op() == Op.REMOVE)
+                return false;
+            wishlistRepository.releaseSlot(customerId);
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, Status> addAll(String customerId, List<Wishlist> wishlists, int limit) {
+        awaitWrites(customerId);
+        return store.addAll(customerId, wishlists, limit);
+    }
+
+    @Override
+    public Set<String> removeAll(String customerId, Collection<String> productIds) {
+        awaitWrites(customerId);
+        return store.removeAll(customerId, productIds);
+    }
+
+    @Override
+    public List<Wishlist> findByCustomerId(String customerId) {
+        awaitWrites(customerId);
+        return store.findByCustomerId(customerId);
+    }
+
+    @Override
+    public VersionedWishlists findVersionedByCustomerId(String customerId) {
+        awaitWrites(customerId);
+        return store.findVersionedByCustomerId(customerId);
+    }
+
+    @Override
+    public String findVersion(String customerId) {
+        awaitWrites(customerId);
+        return store.findVersion(customerId);
+    }
+
+    @Override
+    public boolean exists(String customerId, String productId) {
+        awaitWrites(customerId);
+        return store.exists(customerId, productId);
+    }
+
+    @Override
+    public Set<String> findExistingProductIds(String customerId, Collection<String> productIds) {
+        awaitWrites(customerId);
+        return store.findExistingProductIds(customerId, productIds);
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokens(List<String> tokens) {
+        return store.findByTagTokens(tokens);
+    }
+
+    @Override
+    public List<Wishlist> findByTagTokensAfter(List<String> tokens, String afterId, int limit) {
+        return store.findByTagTokensAfter(tokens, afterId, limit);
+    }
+
+    @Override
+    public String pageCursor(List<String> tokens, Wishlist last) {
+        return store.pageCursor(tokens, last);
+    }
+
+    @Override
+    public Stream<Wishlist> streamByTagTokens(List<String> tokens) {
+        return store.streamByTagTokens(tokens);
+    }
+
+    /**
+     * Writes every queued change: one unordered bulk insert for the adds and one delete per customer for the removes.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Map<String, Pending>> drained;
+            synchronized (lock) {
+                if (pending.isEmpty())
+                    return;
+                drained = pending;
+                pending = new HashMap<>();
+                writing = size;
+                size = 0;
+                inFlight.addAll(drained.keySet());
+            }
+            try {
+                write(drained);
+            } catch (RuntimeException e) {
+                requeue(drained);
+                throw e;
+            } finally {
+                synchronized (lock) {
+                    writing = 0;
+                    inFlight.removeAll(drained.keySet());
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    /**
+     * A full queue is flushed by the caller about to add to it, so producers slow down to the pace of MongoDB. When the
+     * flush fails, the caller fails before queueing anything.
+     */
+    private void makeRoom() {
+        synchronized (lock) {
+            if (size + writing < capacity)
+                return;
+        }
+        flush();
+    }
+
+    int queued() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * Makes the customer's queued changes visible to MongoDB before a read or a synchronous write.
+     */
+    private void awaitWrites(String customerId) {
+        synchronized (lock) {
+            if (!pending.containsKey(customerId) && !inFlight.contains(customerId))
+                return;
+        }
+        flush();
+    }
+
+    private void write(Map<String, Map<String, Pending>> drained) {
+        List<Wishlist> added = new ArrayList<>();
+        Set<String> retried = new HashSet<>();
+        Map<String, List<Wishlist>> removed = new HashMap<>();
+        drained.forEach((customerId, changes) -> changes.forEach((productId, change) -> {
+            if (change.op() == Op.ADD) {
+                added.add(store.withKey(change.wishlist()));
+                if (change.retry())
+                    retried.add(change.wishlist().getId());
+            } else {
+                removed.computeIfAbsent(customerId, key -> new ArrayList<>()).add(change.wishlist());
+            }
+        }));
+
+        Set<String> duplicates = new HashSet<>();
+        Set<String> failed = new HashSet<>();
+        BulkOperationException failure = null;
+        try {
+            duplicates.addAll(wishlistRepository.insertUnordered(added));
+        } catch (BulkOperationException e) {
+            // Unordered: every item without an error of its own was stored, so only the failed ones are retried.
+            for (BulkWriteError error : e.getErrors()) {
+                String id = added.get(error.getIndex()).getId();
+                (error.getCode() == DUPLICATE_KEY ? duplicates : failed).add(id);
+            }
+            failure = e;
+        }
+        drained.values().forEach(changes -> changes.values().removeIf(change ->
+                change.op() == Op.ADD && !failed.contains(change.wishlist().getId())));
+        // A retried add may have been stored by the attempt that failed; its duplicate is that write.
+        duplicates.removeAll(retried);
+        if (!duplicates.isEmpty()) {
+            Map<String, Integer> duplicatesByCustomer = new HashMap<>();
+            added.stream()
+                    .filter(wishlist -> duplicates.contains(wishlist.getId()))
+                    .forEach(wishlist -> duplicatesByCustomer.merge(wishlist.getCustomerId(), 1, Integer::sum));
+            duplicatesByCustomer.forEach(wishlistRepository::releaseSlots);
+        }
+        added.removeIf(wishlist -> duplicates.contains(wishlist.getId()) || failed.contains(wishlist.getId()));
+        store.recorded(added, 1);
+        if (failure != null)
+            throw failure;
+
+        removed.forEach((customerId, wishlists) -> {
+            List<String> productIds = wishlists.stream().map(Wishlist::getProductId).toList();
+            long deleted = wishlistRepository.removeByCustomerIdAndProductIdIn(customerId, productIds);
+            drained.get(customerId).values().removeIf(change -> change.op() == Op.REMOVE);
+            wishlistRepository.releaseSlots(customerId, (int) deleted);
+            store.recorded(wishlists, -1);
+        });
+    }
+
+    private void requeue(Map<String, Map<String, Pending>> drained) {
+        synchronized (lock) {
+            // Changes queued while the flush ran are newer and win.
+            drained.forEach((customerId, changes) -> changes.forEach((productId, change) -> {
+                if (!pendingOf(customerId).containsKey(productId)) {
+                    enqueue(customerId, productId, change.op() == Op.ADD ? new Pending(Op.ADD, change.wishlist(), true) : change);
+                }
+            }));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush failed; {} changes kept for the next attempt", queued(), e);
+        }
+    }
+
+    private Map<String, Pending> pendingOf(String customerId) {
+        return pending.getOrDefault(customerId, Map.of());
+    }
+
+    /**
+     * Changes being written count against the capacity too, so the queue stays bounded while flushes fail and requeue.
+     */
+    private boolean enqueueIfRoom(String customerId, String productId, Pending change) {
+        if (size + writing >= capacity)
+            return false;
+        enqueue(customerId, productId, change);
+        return true;
+    }
+
+    private void enqueue(String customerId, String productId, Pending change) {
+        pending.computeIfAbsent(customerId, key -> new HashMap<>()).put(productId, change);
+        size++;
+    }
+
+    private void dequeue(String customerId, String productId) {
+        Map<String, Pending> changes = pending.get(customerId);
+        changes.remove(productId);
+        if (changes.isEmpty()) {
+            pending.remove(customerId);
+        }
+        size--;
+    }
+
+    private static TooManyRequestsException queueFull() {
+        return new TooManyRequestsException("The write queue is full, try again shortly.", 1);
+    }
+
+    private static DuplicateKeyException duplicate(Wishlist wishlist) {
+        return new DuplicateKeyException("Wishlist with id " + wishlist.getId() + " is already queued.");
+    }
+}
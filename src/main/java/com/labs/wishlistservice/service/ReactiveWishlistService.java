@@ -0,0 +1,109 @@
+package com.labs.wishlistservice.service;
+
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
+import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
+import com.labs.wishlistservice.repositories.ReactiveWishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static com.labs.wishlistservice.service.WishlistService.WISHLIST_LIMIT_CUSTUMER;
+
+/**
+ * Non-blocking counterpart of {@link WishlistService}, used by the {@code reactive} profile. It writes the
+ * {@code items} layout only, with new items keyed in {@code wishlist.storage.key-format}, and passes the items it
+ * added or removed on to the stats and the tag index like {@link com.labs.wishlistservice.repositories.ItemWishlistStore}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveWishlistService {
+
+    private ReactiveWishlistRepository wishlistRepository;
+    private WishlistStatsRepository stats;
+    private WishlistTagIndex tagIndex;
+    private WishlistKeyFormat keyFormat;
+
+    public ReactiveWishlistService(ReactiveWishlistRepository wishlistRepository, WishlistStatsRepository stats, WishlistTagIndex tagIndex,
+                                   @Value("${wishlist.storage.layout:items}") String layout,
+                                   @Value("${wishlist.storage.key-format:legacy}") WishlistKeyFormat keyFormat) {
+        if (!"items".equals(layout))
+            throw new IllegalStateException("The reactive profile only supports wishlist.storage.layout=items, not " + layout);
+
+        this.wishlistRepository = wishlistRepository;
+        this.stats = stats;
+        this.tagIndex = tagIndex;
+        this.keyFormat = keyFormat;
+    }
+
+    public Mono<Wishlist> save(Wishlist wishlist) {
+        String customerId = wishlist.getCustomerId();
+        return wishlistRepository.reserveSlot(customerId, WISHLIST_LIMIT_CUSTUMER)
+                .flatMap(reserved -> {
+                    if (!reserved)
+                        return Mono.<Wishlist>error(new WishlistLimitExceededException(String.format("Customer has reached the maximum number of wishlists (%s).", WISHLIST_LIMIT_CUSTUMER)));
+
+                    return wishlistRepository.insert(withKey(wishlist))
+                            .onErrorResume(e -> wishlistRepository.releaseSlot(customerId).then(Mono.<Wishlist>error(e)))
+                            .flatMap(saved -> recorded(List.of(saved), 1).thenReturn(saved));
+                });
+    }
+
+    public Mono<Void> delete(String customerId, String productId) {
+        return wishlistRepository.deleteByCustomerIdAndProductId(customerId, productId)
+                .switchIfEmpty(Mono.error(() -> new WishlistNotFoundException("Wishlist with id " + Wishlist.generateCompositeId(customerId, productId) + " does not exist.")))
+                .flatMap(removed -> wishlistRepository.releaseSlot(customerId).then(recorded(List.of(removed), -1)));
+    }
+
+    public Mono<List<Wishlist>> findAllCustomer(String customerId) {
+        return wishlistRepository.findByCustomerId(customerId)
+                .collectList()
+                .filter(wishlists -> !wishlists.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new WishlistNotFoundException("No wishlists found for customer with id " + customerId)));
+    }
+
+    public Mono<Boolean> existsByCustomerIdAndProductId(String customerId, String productId) {
+        return wishlistRepository.existsByCustomerIdAndProductId(customerId, productId);
+    }
+
+    public Mono<List<Wishlist>> findByTagsCategory(String tag) {
+        return streamByTagsCategory(tag)
+                .collectList()
+                .filter(wishlists -> !wishlists.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new WishlistNotFoundException("No wishlists found with tag category: " + tag)));
+    }
+
+    public Flux<Wishlist> streamByTagsCategory(String tag) {
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        return tokens.isEmpty() ? Flux.empty() : wishlistRepository.findByTagTokens(tokens);
+    }
+
+    /**
+     * The stats and the tag index write through the blocking template, so they run on the bounded elastic scheduler
+     * instead of an event loop thread.
+     */
+    private Mono<Void> recorded(List<Wishlist> wishlists, int delta) {
+        return Mono.fromRunnable(() -> {
+                    stats.record(wishlists, delta);
+                    tagIndex.record(wishlists, delta);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Wishlist withKey(Wishlist wishlist) {
+        if (keyFormat != WishlistKeyFormat.LEGACY) {
+            wishlist.setId(keyFormat.id(wishlist.getCustomerId(), wishlist.getProductId()));
+        }
+        return wishlist;
+    }
+}
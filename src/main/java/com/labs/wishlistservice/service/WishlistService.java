@@ -1,65 +1,215 @@
 package com.labs.wishlistservice.service;
 
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.VersionedWishlists;
 import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.domain.WishlistPage;
 import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
 import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
-import com.labs.wishlistservice.repositories.WishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistStore;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.regex.Pattern;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.labs.wishlistservice.infra.CacheConfig.CUSTOMER_WISHLISTS;
+import static com.labs.wishlistservice.infra.CacheConfig.MISSING_CUSTOMERS;
+import static com.labs.wishlistservice.infra.CacheConfig.MISSING_TAGS;
+import static com.labs.wishlistservice.infra.CacheConfig.TOP_PRODUCTS;
 
 @Service
+@Observed(name = "wishlist.service")
 public class WishlistService {
 
-    private WishlistRepository wishlistRepository;
-
-    public WishlistService(WishlistRepository wishlistRepository) {
-        this.wishlistRepository = wishlistRepository;
+    /**
+     * A cached list with the version read just before it, which is what a later read compares to the current one.
+     */
+    private record CachedWishlists(String readAt, VersionedWishlists found) {
     }
 
-    private static final int WISHLIST_LIMIT_CUSTUMER = 20;
+    private WishlistStore wishlistStore;
+    private WishlistStatsRepository statsRepository;
+    private Cache customerWishlists;
 
-    private Boolean wishlistLimitExceeded(String customerId) {
-        return wishlistRepository.countByCustomerId(customerId) >= WISHLIST_LIMIT_CUSTUMER;
-    }
-    private String wrapRegex(String value) {
-        return ".*" + Pattern.quote(value)  + ".*";
+    public WishlistService(WishlistStore wishlistStore, WishlistStatsRepository statsRepository, CacheManager cacheManager) {
+        this.wishlistStore = wishlistStore;
+        this.statsRepository = statsRepository;
+        this.customerWishlists = cacheManager.getCache(CUSTOMER_WISHLISTS);
     }
 
+    static final int WISHLIST_LIMIT_CUSTUMER = 20;
+    private static final int TAGS_PAGE_MAX_SIZE = 100;
+    private static final int TAG_STATS_MAX_SIZE = 100;
 
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CUSTOMER_WISHLISTS, key = "#wishlist.customerId"),
+            @CacheEvict(cacheNames = MISSING_CUSTOMERS, key = "#wishlist.customerId"),
+            @CacheEvict(cacheNames = MISSING_TAGS, allEntries = true)
+    })
     public Wishlist save(Wishlist wishlist) {
-        if (wishlistLimitExceeded(wishlist.getCustomerId()))
+        if (!wishlistStore.add(wishlist, WISHLIST_LIMIT_CUSTUMER))
             throw new WishlistLimitExceededException(String.format("Customer has reached the maximum number of wishlists (%s).", WISHLIST_LIMIT_CUSTUMER));
 
-        return wishlistRepository.insert(wishlist);
+        return wishlist;
     }
 
-    public void delete(String id) {
-        if(wishlistRepository.existsById(id)) {
-            wishlistRepository.deleteById(id);
-        } else {
+    @CacheEvict(cacheNames = CUSTOMER_WISHLISTS, key = "#customerId")
+    public void delete(String customerId, String productId) {
+        if (!wishlistStore.remove(customerId, productId)) {
+            String id = Wishlist.generateCompositeId(customerId, productId);
             throw new WishlistNotFoundException("Wishlist with id " + id + " does not exist.");
         }
     }
 
-    public List<Wishlist> findAllCustomer(String customerId) {
-        if(wishlistRepository.existsByCustomerId(customerId)){
-            return wishlistRepository.findByCustomerId(customerId);
-        } else {
-            throw new WishlistNotFoundException("No wishlists found for customer with id " + customerId);
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CUSTOMER_WISHLISTS, key = "#customerId"),
+            @CacheEvict(cacheNames = MISSING_CUSTOMERS, key = "#customerId"),
+            @CacheEvict(cacheNames = MISSING_TAGS, allEntries = true)
+    })
+    public List<WishlistBatchResult> saveAll(String customerId, List<Wishlist> wishlists) {
+        Map<String, Wishlist> unique = new LinkedHashMap<>();
+        for (Wishlist wishlist : wishlists) {
+            unique.putIfAbsent(wishlist.getProductId(), wishlist);
+        }
+
+        Map<String, Status> statuses = wishlistStore.addAll(customerId, new ArrayList<>(unique.values()), WISHLIST_LIMIT_CUSTUMER);
+
+        List<WishlistBatchResult> results = new ArrayList<>(wishlists.size());
+        Set<String> seen = new HashSet<>();
+        for (Wishlist wishlist : wishlists) {
+            String productId = wishlist.getProductId();
+            Status status = seen.add(productId) ? statuses.get(productId) : Status.DUPLICATE;
+            results.add(new WishlistBatchResult(productId, status));
+        }
+        return results;
+    }
+
+    @CacheEvict(cacheNames = CUSTOMER_WISHLISTS, key = "#customerId")
+    public List<WishlistBatchResult> deleteAll(String customerId, List<String> productIds) {
+        Set<String> removed = wishlistStore.removeAll(customerId, new LinkedHashSet<>(productIds));
+
+        Set<String> reported = new HashSet<>();
+        List<WishlistBatchResult> results = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            Status status = removed.contains(productId) && reported.add(productId) ? Status.REMOVED : Status.NOT_FOUND;
+            results.add(new WishlistBatchResult(productId, status));
         }
+        return results;
+    }
+
+    /**
+     * The list is cached with the version it was read with, so an ETag built from it always describes the cached list.
+     * A cached list is only served while the current version is still the one read before it: a read that raced a
+     * write may put its list back after the write evicted it, and the version the write set keeps it from being served.
+     * Empty lists go to the small, short-lived {@code MISSING_CUSTOMERS} cache instead, so unknown ids cannot evict
+     * real lists.
+     */
+    @Cacheable(cacheNames = MISSING_CUSTOMERS, key = "#customerId", unless = "!#result.wishlists().isEmpty()")
+    public VersionedWishlists findAllCustomer(String customerId) {
+        String version = wishlistStore.findVersion(customerId);
+        CachedWishlists cached = customerWishlists.get(customerId, CachedWishlists.class);
+        if (cached != null && Objects.equals(cached.readAt(), version))
+            return cached.found();
+
+        VersionedWishlists found = wishlistStore.findVersionedByCustomerId(customerId);
+        if (!found.wishlists().isEmpty()) {
+            customerWishlists.put(customerId, new CachedWishlists(version, found));
+        }
+        return found;
+    }
+
+    /**
+     * Current version of the customer's wishlist, read on the primary without loading the items; {@code null} when
+     * never set.
+     */
+    public String findVersion(String customerId) {
+        return wishlistStore.findVersion(customerId);
     }
 
     public Boolean existsByCustomerIdAndProductId(String customerId, String productId) {
-        return wishlistRepository.existsByCustomerIdAndProductId(customerId, productId);
+        return wishlistStore.exists(customerId, productId);
+    }
+
+    public List<String> findExistingProductIds(String customerId, List<String> productIds) {
+        Set<String> existing = wishlistStore.findExistingProductIds(customerId, productIds);
+        return productIds.stream()
+                .distinct()
+                .filter(existing::contains)
+                .toList();
     }
 
+    @Cacheable(cacheNames = MISSING_TAGS, key = "T(com.labs.wishlistservice.domain.TagTokenizer).tokenize(#tag)", unless = "!#result.isEmpty()")
     public List<Wishlist> findByTagsCategory(String tag) {
-        if (wishlistRepository.existsByTagsCategory(wrapRegex(tag))){
-            return wishlistRepository.findByTagsCategory(wrapRegex(tag));
-        } else {
-            throw new WishlistNotFoundException("No wishlists found with tag category: " + tag);
-        }
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        return tokens.isEmpty() ? List.of() : wishlistStore.findByTagTokens(tokens);
+    }
+
+    public WishlistPage findByTagsCategoryPage(String tag, String after, int size) {
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        if (tokens.isEmpty())
+            return new WishlistPage(List.of(), null);
+
+        int pageSize = Math.max(1, Math.min(size, TAGS_PAGE_MAX_SIZE));
+        List<Wishlist> found = wishlistStore.findByTagTokensAfter(tokens, after, pageSize + 1);
+        if (found.size() <= pageSize)
+            return new WishlistPage(found, null);
+
+        List<Wishlist> page = found.subList(0, pageSize);
+        return new WishlistPage(page, wishlistStore.pageCursor(tokens, page.get(pageSize - 1)));
+    }
+
+    public Stream<Wishlist> streamByTagsCategory(String tag) {
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        return tokens.isEmpty() ? Stream.empty() : wishlistStore.streamByTagTokens(tokens);
+    }
+
+    public List<TagStats> findTopTags(int limit) {
+        return statsRepository.findTopTags(Math.max(1, Math.min(limit, TAG_STATS_MAX_SIZE)));
+    }
+
+    /**
+     * Stats of a single tag token, or {@code null} when the tag is not one word or no item holds it.
+     */
+    public TagStats findTagStats(String tag) {
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        return tokens.size() == 1 ? statsRepository.findByTag(tokens.get(0)) : null;
+    }
+
+    /**
+     * Most wished products under a tag token as returned by {@link #findTagStats(String)}.
+     */
+    public List<TagProductStats> findTopProducts(String token, int limit) {
+        return statsRepository.findTopProducts(token, Math.max(1, Math.min(limit, TAG_STATS_MAX_SIZE)));
+    }
+
+    /**
+     * Most wishlisted products overall, or under a one-word {@code tag} when given.
+     */
+    @Cacheable(cacheNames = TOP_PRODUCTS, key = "{#tag, #limit}")
+    public List<ProductStats> findMostWishlisted(String tag, int limit) {
+        int size = Math.max(1, Math.min(limit, TAG_STATS_MAX_SIZE));
+        if (tag == null)
+            return statsRepository.findTopProducts(size);
+
+        List<String> tokens = TagTokenizer.tokenize(tag);
+        if (tokens.size() != 1)
+            return List.of();
+
+        return statsRepository.findTopProducts(tokens.get(0), size).stream()
+                .map(stats -> new ProductStats(stats.getProductId(), stats.getCount()))
+                .toList();
     }
 }
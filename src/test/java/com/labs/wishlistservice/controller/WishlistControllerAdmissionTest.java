@@ -0,0 +1,114 @@
+package com.labs.wishlistservice.controller;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.infra.AdmissionControl;
+import com.labs.wishlistservice.infra.GlobalExceptionHandler;
+import com.labs.wishlistservice.infra.WishlistMetrics;
+import com.labs.wishlistservice.service.WishlistService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = WishlistController.class, properties = {
+        "wishlist.admission.enabled=true",
+        "wishlist.admission.customer.rate=0.001",
+        "wishlist.admission.customer.burst=2",
+        "wishlist.admission.global.rate=100000",
+        "wishlist.admission.global.burst=100000"
+})
+@Import({GlobalExceptionHandler.class, WishlistMetrics.class, AdmissionControl.class})
+class WishlistControllerAdmissionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final String customerId = UUID.randomUUID().toString();
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public WishlistService wishlistService() {
+            return Mockito.mock(WishlistService.class);
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        Mockito.reset(wishlistService);
+    }
+
+    @Test
+    void testExists_RejectedOverCustomerLimit() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/wishlist/exists").param("customerId", customerId).param("productId", "prod1"))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/wishlist/exists").param("customerId", customerId).param("productId", "prod1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value("Too many requests for customer " + customerId));
+
+        verify(wishlistService, times(2)).existsByCustomerIdAndProductId(customerId, "prod1");
+        assertEquals(1.0, meterRegistry.counter("wishlist.rejections", "reason", "customer_rate_limited").count());
+    }
+
+    @Test
+    void testSave_RejectedBeforeService() throws Exception {
+        String body = "{\"customerId\":\"" + customerId + "\",\"productId\":\"prod1\",\"tagsCategory\":\"tech\"}";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/wishlist").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(post("/wishlist").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value("Too many requests for customer " + customerId));
+
+        verify(wishlistService, times(2)).save(any());
+    }
+
+    @Test
+    void testCustomers_LimitedIndependently() throws Exception {
+        when(wishlistService.findAllCustomer(anyString())).thenReturn(new VersionedWishlists(null, List.of()));
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/wishlist/customer/" + customerId));
+        }
+
+        mockMvc.perform(get("/wishlist/customer/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+        verify(wishlistService, times(3)).findAllCustomer(anyString());
+    }
+}
@@ -1,10 +1,21 @@
 package com.labs.wishlistservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.VersionedWishlists;
 import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult;
+import com.labs.wishlistservice.domain.WishlistPage;
+import com.labs.wishlistservice.dtos.WishlistBatchDTO;
+import com.labs.wishlistservice.dtos.WishlistItemDTO;
 import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
 import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
 import com.labs.wishlistservice.infra.GlobalExceptionHandler;
+import com.labs.wishlistservice.infra.WishlistMetrics;
 import com.labs.wishlistservice.service.WishlistService;
 import com.labs.wishlistservice.dtos.WishlistDTO;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,18 +28,26 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(WishlistController.class)
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, WishlistMetrics.class})
 class WishlistControllerTest {
 
     @Autowired
@@ -37,6 +56,9 @@ class WishlistControllerTest {
     @Autowired
     private WishlistService wishlistService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     ObjectMapper objectMapper = new ObjectMapper();
 
     @TestConfiguration
@@ -45,6 +67,11 @@ class WishlistControllerTest {
         public WishlistService wishlistService() {
             return Mockito.mock(WishlistService.class);
         }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
     }
 
     @BeforeEach
@@ -76,6 +103,8 @@ class WishlistControllerTest {
                         .content(objectMapper.writeValueAsString(dto)))
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.message").value("Limit exceeded"));
+
+        assertEquals(1.0, meterRegistry.counter("wishlist.rejections", "reason", "limit_exceeded").count());
     }
 
     @Test
@@ -116,7 +145,7 @@ class WishlistControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Wishlist deleted successfully"));
 
-        verify(wishlistService).delete(anyString());
+        verify(wishlistService).delete("cust1", "prod1");
     }
 
     @Test
@@ -124,7 +153,7 @@ class WishlistControllerTest {
         WishlistDTO dto = new WishlistDTO("cust1", "prod-notfound", "");
 
         doThrow(new WishlistNotFoundException("Not found"))
-                .when(wishlistService).delete(anyString());
+                .when(wishlistService).delete(anyString(), anyString());
 
         mockMvc.perform(delete("/wishlist")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -136,21 +165,73 @@ class WishlistControllerTest {
     @Test
     void testFindAllCustomer_Success() throws Exception {
         when(wishlistService.findAllCustomer("cust1"))
-                .thenReturn(List.of(new Wishlist("cust1", "prod1", "cat")));
+                .thenReturn(new VersionedWishlists("v1", List.of(new Wishlist("cust1", "prod1", "cat"))));
 
         mockMvc.perform(get("/wishlist/customer/cust1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.wishlists").isArray());
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.wishlists").isArray())
+                .andExpect(jsonPath("$.wishlists[0].customerId").value("cust1"))
+                .andExpect(jsonPath("$.wishlists[0].productId").value("prod1"))
+                .andExpect(jsonPath("$.wishlists[0].tagsCategory").value("cat"))
+                .andExpect(jsonPath("$.wishlists[0].id").doesNotExist());
     }
 
     @Test
     void testFindAllCustomer_NotFound() throws Exception {
         when(wishlistService.findAllCustomer("cust1"))
-                .thenThrow(new WishlistNotFoundException("No wishlists found"));
+                .thenReturn(new VersionedWishlists("v1", List.of()));
 
         mockMvc.perform(get("/wishlist/customer/cust1"))
                 .andExpect(status().isNotFound())
-                .andExpect(jsonPath("$.message").value("No wishlists found"));
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.message").value("No wishlists found for customer with id cust1"))
+                .andExpect(jsonPath("$.errors").doesNotExist());
+    }
+
+    @Test
+    void testFindAllCustomer_NotModified_WithoutLoadingList() throws Exception {
+        when(wishlistService.findVersion("cust1")).thenReturn("v1");
+
+        mockMvc.perform(get("/wishlist/customer/cust1").header(HttpHeaders.IF_NONE_MATCH, "\"v0\", \"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+                .andExpect(content().string(""));
+
+        verify(wishlistService, never()).findAllCustomer(anyString());
+    }
+
+    @Test
+    void testFindAllCustomer_ChangedVersion_ReturnsList() throws Exception {
+        when(wishlistService.findVersion("cust1")).thenReturn("v2");
+        when(wishlistService.findAllCustomer("cust1"))
+                .thenReturn(new VersionedWishlists("v2", List.of(new Wishlist("cust1", "prod1", "cat"))));
+
+        mockMvc.perform(get("/wishlist/customer/cust1").header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v2\""))
+                .andExpect(jsonPath("$.wishlists[0].productId").value("prod1"));
+    }
+
+    @Test
+    void testFindAllCustomer_NoVersion_ReturnsListWithoutETag() throws Exception {
+        when(wishlistService.findAllCustomer("cust1"))
+                .thenReturn(new VersionedWishlists(null, List.of(new Wishlist("cust1", "prod1", "cat"))));
+
+        mockMvc.perform(get("/wishlist/customer/cust1").header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testFindByTagsCategory_NotFound() throws Exception {
+        when(wishlistService.findByTagsCategory("casa")).thenReturn(List.of());
+
+        mockMvc.perform(get("/wishlist/tags/casa"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("No wishlists found with tag category: casa"));
     }
 
     @Test
@@ -171,6 +252,160 @@ class WishlistControllerTest {
 
         mockMvc.perform(get("/wishlist/tags/tech"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.wishlists").isArray());
+                .andExpect(jsonPath("$.wishlists").isArray())
+                .andExpect(jsonPath("$.wishlists[0].id").value(Wishlist.generateCompositeId("cust1", "prod1")))
+                .andExpect(jsonPath("$.wishlists[0].tagsCategory").value("tech"))
+                .andExpect(jsonPath("$.wishlists[0].tagTokens").doesNotExist());
+    }
+
+    @Test
+    void testFindByTagsCategoryPage() throws Exception {
+        Wishlist wishlist = new Wishlist("cust1", "prod1", "tech");
+        when(wishlistService.findByTagsCategoryPage("tech", null, 1))
+                .thenReturn(new WishlistPage(List.of(wishlist), wishlist.getId()));
+
+        mockMvc.perform(get("/wishlist/tags/tech/page").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.wishlists[0].productId").value("prod1"))
+                .andExpect(jsonPath("$.next").value(wishlist.getId()));
+    }
+
+    @Test
+    void testFindTopTags() throws Exception {
+        TagStats stats = new TagStats();
+        stats.setTag("tech");
+        stats.setCount(42);
+        when(wishlistService.findTopTags(5)).thenReturn(List.of(stats));
+
+        mockMvc.perform(get("/wishlist/tags/stats").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[0].tag").value("tech"))
+                .andExpect(jsonPath("$.tags[0].count").value(42));
+    }
+
+    @Test
+    void testFindTagStats() throws Exception {
+        TagStats stats = new TagStats();
+        stats.setTag("tech");
+        stats.setCount(42);
+        TagProductStats product = new TagProductStats();
+        product.setId(TagProductStats.generateId("tech", "prod1"));
+        product.setTag("tech");
+        product.setProductId("prod1");
+        product.setCount(7);
+        when(wishlistService.findTagStats("Tech")).thenReturn(stats);
+        when(wishlistService.findTopProducts("tech", 10)).thenReturn(List.of(product));
+
+        mockMvc.perform(get("/wishlist/tags/Tech/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tag").value("tech"))
+                .andExpect(jsonPath("$.count").value(42))
+                .andExpect(jsonPath("$.products[0].productId").value("prod1"))
+                .andExpect(jsonPath("$.products[0].count").value(7))
+                .andExpect(jsonPath("$.products[0].id").doesNotExist());
+    }
+
+    @Test
+    void testFindMostWishlisted() throws Exception {
+        when(wishlistService.findMostWishlisted(null, 10)).thenReturn(List.of(new ProductStats("prod1", 9)));
+
+        mockMvc.perform(get("/wishlist/products/top"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].productId").value("prod1"))
+                .andExpect(jsonPath("$.products[0].count").value(9));
+    }
+
+    @Test
+    void testFindTagStats_NotFound() throws Exception {
+        when(wishlistService.findTagStats("casa")).thenReturn(null);
+
+        mockMvc.perform(get("/wishlist/tags/casa/stats"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("No stats found for tag: casa"));
+    }
+
+    @Test
+    void testStreamByTagsCategory() throws Exception {
+        when(wishlistService.streamByTagsCategory("tech"))
+                .thenReturn(Stream.of(new Wishlist("cust1", "prod1", "tech"), new Wishlist("cust2", "prod2", "tech")));
+
+        MvcResult result = mockMvc.perform(get("/wishlist/tags/tech/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"customerId\":\"cust1\",\"productId\":\"prod1\",\"tagsCategory\":\"tech\"}\n" +
+                        "{\"customerId\":\"cust2\",\"productId\":\"prod2\",\"tagsCategory\":\"tech\"}\n"));
+    }
+
+    @Test
+    void testSaveAll_ReturnsPerItemResults() throws Exception {
+        WishlistBatchDTO batch = new WishlistBatchDTO("cust1",
+                List.of(new WishlistItemDTO("prod1", "tech"), new WishlistItemDTO("prod2", "tech")));
+
+        when(wishlistService.saveAll(eq("cust1"), anyList())).thenReturn(List.of(
+                new WishlistBatchResult("prod1", WishlistBatchResult.Status.ADDED),
+                new WishlistBatchResult("prod2", WishlistBatchResult.Status.LIMIT_EXCEEDED)));
+
+        mockMvc.perform(post("/wishlist/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("ADDED"))
+                .andExpect(jsonPath("$.results[1].status").value("LIMIT_EXCEEDED"));
+    }
+
+    @Test
+    void testSaveAll_ValidationFailed() throws Exception {
+        WishlistBatchDTO batch = new WishlistBatchDTO("cust1", List.of(new WishlistItemDTO("", "tech")));
+
+        mockMvc.perform(post("/wishlist/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors['items[0].productId']").value("Product ID is required"));
+    }
+
+    @Test
+    void testDeleteAll_ReturnsPerItemResults() throws Exception {
+        WishlistBatchDTO batch = new WishlistBatchDTO("cust1", List.of(new WishlistItemDTO("prod1", null)));
+
+        when(wishlistService.deleteAll("cust1", List.of("prod1"))).thenReturn(List.of(
+                new WishlistBatchResult("prod1", WishlistBatchResult.Status.NOT_FOUND)));
+
+        mockMvc.perform(delete("/wishlist/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void testFindExistingProductIds() throws Exception {
+        when(wishlistService.findExistingProductIds("cust1", List.of("prod1", "prod2", "prod3")))
+                .thenReturn(List.of("prod2"));
+
+        mockMvc.perform(get("/wishlist/exists/batch")
+                        .param("customerId", "cust1")
+                        .param("productIds", "prod1,prod2,prod3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productIds[0]").value("prod2"))
+                .andExpect(jsonPath("$.productIds.length()").value(1));
+    }
+
+    @Test
+    void testFindExistingProductIds_TooManyIds() throws Exception {
+        String productIds = String.join(",", IntStream.rangeClosed(1, 101).mapToObj(i -> "prod" + i).toList());
+
+        mockMvc.perform(get("/wishlist/exists/batch")
+                        .param("customerId", "cust1")
+                        .param("productIds", productIds))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.productIds").value("At most 100 product IDs can be checked at once"));
+
+        verifyNoInteractions(wishlistService);
     }
 }
@@ -0,0 +1,37 @@
+package com.labs.wishlistservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TagTokenizerTest {
+
+    @Test
+    void testTokenize_LowercasesAndStripsAccents() {
+        assertEquals(List.of("eletronicos", "cozinha"), TagTokenizer.tokenize("Eletrônicos Cozinha"));
+    }
+
+    @Test
+    void testTokenize_SplitsOnPunctuationAndDropsDuplicates() {
+        assertEquals(List.of("casa", "banho", "2"), TagTokenizer.tokenize("Casa/Banho, casa - 2"));
+    }
+
+    @Test
+    void testTokenize_EmptyForBlankOrNull() {
+        assertTrue(TagTokenizer.tokenize(null).isEmpty());
+        assertTrue(TagTokenizer.tokenize("  ").isEmpty());
+        assertTrue(TagTokenizer.tokenize("--").isEmpty());
+    }
+
+    @Test
+    void testWishlist_KeepsTokensInSyncWithTags() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "Tech");
+        assertEquals(List.of("tech"), wishlist.getTagTokens());
+
+        wishlist.setTagsCategory("Livros");
+        assertEquals(List.of("livros"), wishlist.getTagTokens());
+    }
+}
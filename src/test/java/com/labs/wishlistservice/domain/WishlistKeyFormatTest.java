@@ -0,0 +1,32 @@
+package com.labs.wishlistservice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class WishlistKeyFormatTest {
+
+    @Test
+    void testLegacy_MatchesGeneratedCompositeId() {
+        assertEquals("customer#c1-product#p1", WishlistKeyFormat.LEGACY.id("c1", "p1"));
+        assertEquals(Wishlist.generateCompositeId("c1", "p1"), WishlistKeyFormat.LEGACY.id("c1", "p1"));
+    }
+
+    @Test
+    void testCompact_PrefixesCustomerLength() {
+        assertEquals("2:c1p1", WishlistKeyFormat.COMPACT.id("c1", "p1"));
+    }
+
+    @Test
+    void testCompact_KeepsSplitPointUnambiguous() {
+        assertNotEquals(WishlistKeyFormat.COMPACT.id("ab", "c"), WishlistKeyFormat.COMPACT.id("a", "bc"));
+    }
+
+    @Test
+    void testCustomerIdOf_ReadsBothFormats() {
+        assertEquals("c-1", WishlistKeyFormat.customerIdOf(WishlistKeyFormat.LEGACY.id("c-1", "p1")));
+        assertEquals("c:1", WishlistKeyFormat.customerIdOf(WishlistKeyFormat.COMPACT.id("c:1", "p1")));
+        assertEquals("ção", WishlistKeyFormat.customerIdOf(WishlistKeyFormat.COMPACT.id("ção", "p1")));
+    }
+}
@@ -0,0 +1,44 @@
+package com.labs.wishlistservice.infra;
+
+import com.labs.wishlistservice.domain.TagTokenizer;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.dtos.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testDocuments_AreReflectable() {
+        for (Class<?> document : NativeHints.DOCUMENTS) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(document)
+                    .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS)
+                    .test(hints), document.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Wishlist.class, "getTagsCategory").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Wishlist.class, "setTagsCategory").test(hints));
+    }
+
+    @Test
+    void testCacheKeyExpression_CanCallTagTokenizer() {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TagTokenizer.class, "tokenize").test(hints));
+    }
+
+    @Test
+    void testErrorResponse_IsSerializable() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ErrorResponse.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ErrorResponse.class, "message").test(hints));
+    }
+}
@@ -0,0 +1,56 @@
+package com.labs.wishlistservice.infra;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurst_ThenOnePermitPerInterval() {
+        RateLimiter limiter = new RateLimiter(10, 3, 0);
+
+        assertEquals(0, limiter.tryAcquire(0));
+        assertEquals(0, limiter.tryAcquire(0));
+        assertEquals(0, limiter.tryAcquire(0));
+        assertEquals(SECOND / 10, limiter.tryAcquire(0));
+
+        assertEquals(0, limiter.tryAcquire(SECOND / 10));
+        assertTrue(limiter.tryAcquire(SECOND / 10) > 0);
+    }
+
+    @Test
+    void testIdleTime_RefillsUpToBurstOnly() {
+        RateLimiter limiter = new RateLimiter(10, 2, 0);
+
+        long later = 60 * SECOND;
+        assertEquals(0, limiter.tryAcquire(later));
+        assertEquals(0, limiter.tryAcquire(later));
+        assertTrue(limiter.tryAcquire(later) > 0);
+    }
+
+    @Test
+    void testConcurrentCallers_NeverExceedBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 50, 0);
+        AtomicInteger admitted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 1000; i++) {
+                executor.submit(() -> {
+                    if (limiter.tryAcquire(0) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertEquals(50, admitted.get());
+    }
+}
@@ -0,0 +1,98 @@
+package com.labs.wishlistservice.infra;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import com.labs.wishlistservice.repositories.WishlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the local standalone mongod, which serves {@code secondaryPreferred} reads as a one-node replica set would.
+ */
+@DataMongoTest(properties = {
+        "wishlist.read.preference=secondaryPreferred",
+        "wishlist.read.max-staleness=120s",
+        "wishlist.read.your-writes-window=300ms"
+})
+@ActiveProfiles("test")
+@Import(ReadRouting.class)
+class ReadRoutingTest {
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    private final String customerId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void tearDown() {
+        wishlistRepository.removeByCustomerIdAndProductId(customerId, "product1");
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(customerId)), WishlistCounter.class);
+    }
+
+    @Test
+    void testReads_UseConfiguredPreference() {
+        MongoTemplate reads = readRouting.forCustomer(customerId);
+
+        assertNotSame(mongoTemplate, reads);
+        assertSame(reads, readRouting.forQueries());
+    }
+
+    @Test
+    void testRecentWriter_ReadsFromPrimaryUntilWindowEnds() throws InterruptedException {
+        readRouting.recordWrite(customerId);
+        assertSame(mongoTemplate, readRouting.forCustomer(customerId));
+
+        Thread.sleep(500);
+
+        assertNotSame(mongoTemplate, readRouting.forCustomer(customerId));
+    }
+
+    @Test
+    void testRepositoryWrites_KeepCustomerReadsOnPrimary() throws InterruptedException {
+        wishlistRepository.reserveSlot(customerId, 20);
+        wishlistRepository.insert(new Wishlist(customerId, "product1", "tech"));
+
+        assertSame(mongoTemplate, readRouting.forCustomer(customerId));
+        assertEquals(1, wishlistRepository.findByCustomerId(customerId).size());
+        assertTrue(wishlistRepository.existsByCustomerIdAndProductId(customerId, "product1"));
+
+        Thread.sleep(500);
+
+        assertNotSame(mongoTemplate, readRouting.forCustomer(customerId));
+        assertEquals(1, wishlistRepository.findByCustomerId(customerId).size());
+    }
+
+    @Test
+    void testVersionedList_FollowsRoutingAndIsVersionedOnlyFromPrimary() throws InterruptedException {
+        wishlistRepository.reserveSlot(customerId, 20);
+        wishlistRepository.insert(new Wishlist(customerId, "product1", "tech"));
+
+        assertTrue(readRouting.readsPrimary(customerId));
+        assertNotNull(wishlistRepository.findVersionedByCustomerId(customerId).version());
+
+        Thread.sleep(500);
+
+        assertFalse(readRouting.readsPrimary(customerId));
+        VersionedWishlists routed = wishlistRepository.findVersionedByCustomerId(customerId);
+        assertEquals(1, routed.wishlists().size());
+        assertNull(routed.version());
+    }
+}
@@ -0,0 +1,95 @@
+package com.labs.wishlistservice.migration;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+class WishlistSnapshotTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @TempDir
+    Path dir;
+
+    private final String customerId = UUID.randomUUID().toString();
+    private WishlistSnapshot snapshot;
+
+    @BeforeEach
+    void setup() {
+        snapshot = new WishlistSnapshot(mongoTemplate, "export", dir, 2, "items");
+        mongoTemplate.insertAll(List.of(
+                new Wishlist(customerId, "product1", "tech"),
+                new Wishlist(customerId, "product2", "casa cozinha"),
+                new Wishlist(customerId, "product3", null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(customerQuery(), Wishlist.class);
+    }
+
+    @Test
+    void testExportThenImport_RestoresDeletedItems() throws IOException {
+        long exported = snapshot.exportTo(dir);
+
+        assertTrue(exported >= 3);
+        try (Stream<Path> parts = Files.list(dir)) {
+            assertThat(parts.map(path -> path.getFileName().toString()))
+                    .isNotEmpty()
+                    .allMatch(name -> name.startsWith("wishlist-") && name.endsWith(WishlistSnapshot.PART_SUFFIX));
+        }
+
+        mongoTemplate.remove(customerQuery(), Wishlist.class);
+        snapshot.importFrom(dir);
+
+        List<Wishlist> restored = mongoTemplate.find(customerQuery(), Wishlist.class);
+        assertThat(restored)
+                .extracting(Wishlist::getProductId)
+                .containsExactlyInAnyOrder("product1", "product2", "product3");
+        Wishlist kitchen = restored.stream().filter(wishlist -> "product2".equals(wishlist.getProductId())).findFirst().orElseThrow();
+        assertEquals(Wishlist.generateCompositeId(customerId, "product2"), kitchen.getId());
+        assertEquals(List.of("casa", "cozinha"), kitchen.getTagTokens());
+    }
+
+    @Test
+    void testImport_SkipsExistingDocuments() throws IOException {
+        snapshot.exportTo(dir);
+
+        assertEquals(0, snapshot.importFrom(dir));
+        assertEquals(3, mongoTemplate.count(customerQuery(), Wishlist.class));
+    }
+
+    @Test
+    void testExport_ReplacesPartsOfPreviousExport() throws IOException {
+        Files.createFile(dir.resolve(snapshot.partName(99)));
+
+        snapshot.exportTo(dir);
+
+        assertFalse(Files.exists(dir.resolve(snapshot.partName(99))));
+    }
+
+    private Query customerQuery() {
+        return Query.query(Criteria.where("customerId").is(customerId));
+    }
+}
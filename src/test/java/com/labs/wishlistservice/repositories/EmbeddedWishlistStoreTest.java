@@ -0,0 +1,173 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.infra.ReadRouting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest(properties = "wishlist.storage.layout=embedded")
+@ActiveProfiles("test")
+@Import({EmbeddedWishlistStore.class, WishlistChangeRecorder.class, WishlistStatsRepository.class, WishlistTagIndex.class, ReadRouting.class})
+class EmbeddedWishlistStoreTest {
+
+    private static final int LIMIT = 3;
+
+    @Autowired
+    private WishlistStore wishlistStore;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WishlistStatsRepository statsRepository;
+
+    @Autowired
+    private WishlistChangeRecorder recorder;
+
+    private final String customerId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(customerId)), CustomerWishlist.class);
+    }
+
+    @Test
+    void testAdd_StopsAtLimitAndRejectsDuplicates() {
+        IntStream.range(0, LIMIT).forEach(i -> assertTrue(wishlistStore.add(new Wishlist(customerId, "product" + i, "tech"), LIMIT)));
+
+        assertFalse(wishlistStore.add(new Wishlist(customerId, "product9", "tech"), LIMIT));
+        assertThrows(DuplicateKeyException.class, () -> wishlistStore.add(new Wishlist(customerId, "product0", "tech"), LIMIT));
+        assertEquals(LIMIT, wishlistStore.findByCustomerId(customerId).size());
+    }
+
+    @Test
+    void testAdd_RacingFirstAddsAreNotRejected() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(LIMIT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> added = IntStream.range(0, LIMIT)
+                .mapToObj(i -> executor.submit(() -> {
+                    start.await();
+                    return wishlistStore.add(new Wishlist(customerId, "product" + i, "tech"), LIMIT);
+                }))
+                .toList();
+
+        start.countDown();
+        for (Future<Boolean> future : added) {
+            assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(LIMIT, wishlistStore.findByCustomerId(customerId).size());
+    }
+
+    @Test
+    void testRemove() {
+        wishlistStore.add(new Wishlist(customerId, "product1", "tech"), LIMIT);
+
+        assertTrue(wishlistStore.remove(customerId, "product1"));
+        assertFalse(wishlistStore.remove(customerId, "product1"));
+        assertFalse(wishlistStore.exists(customerId, "product1"));
+    }
+
+    @Test
+    void testFindVersion_ChangesOnlyWhenItemsChange() {
+        assertNull(wishlistStore.findVersion(customerId));
+
+        wishlistStore.add(new Wishlist(customerId, "product1", "tech"), LIMIT);
+        String added = wishlistStore.findVersion(customerId);
+        assertNotNull(added);
+
+        assertFalse(wishlistStore.remove(customerId, "product9"));
+        assertEquals(added, wishlistStore.findVersion(customerId));
+
+        assertTrue(wishlistStore.remove(customerId, "product1"));
+        assertNotEquals(added, wishlistStore.findVersion(customerId));
+    }
+
+    @Test
+    void testWrites_UpdateTagStats() {
+        String tag = "t" + customerId.replace("-", "");
+        wishlistStore.add(new Wishlist(customerId, "product1", tag), LIMIT);
+        wishlistStore.addAll(customerId, List.of(
+                new Wishlist(customerId, "product1", tag),
+                new Wishlist(customerId, "product2", tag)), LIMIT);
+        recorder.flush();
+        assertEquals(2, statsRepository.findByTag(tag).getCount());
+
+        wishlistStore.remove(customerId, "product1");
+        wishlistStore.removeAll(customerId, List.of("product2", "product9"));
+
+        recorder.flush();
+        assertEquals(0, statsRepository.findByTag(tag).getCount());
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(tag)), TagStats.class);
+        mongoTemplate.remove(Query.query(Criteria.where("tag").is(tag)), TagProductStats.class);
+    }
+
+    @Test
+    void testAddAll_ReportsAddedDuplicateAndLimit() {
+        wishlistStore.add(new Wishlist(customerId, "product1", "tech"), LIMIT);
+
+        Map<String, Status> statuses = wishlistStore.addAll(customerId, List.of(
+                new Wishlist(customerId, "product1", "tech"),
+                new Wishlist(customerId, "product2", "tech"),
+                new Wishlist(customerId, "product3", "tech"),
+                new Wishlist(customerId, "product4", "tech")), LIMIT);
+
+        assertEquals(Map.of(
+                "product1", Status.DUPLICATE,
+                "product2", Status.ADDED,
+                "product3", Status.ADDED,
+                "product4", Status.LIMIT_EXCEEDED), statuses);
+        assertEquals(Set.of("product1", "product2", "product3"),
+                wishlistStore.findExistingProductIds(customerId, List.of("product1", "product2", "product3", "product4")));
+    }
+
+    @Test
+    void testRemoveAll_ReturnsOnlyRemovedProducts() {
+        wishlistStore.addAll(customerId, List.of(
+                new Wishlist(customerId, "product1", "tech"),
+                new Wishlist(customerId, "product2", "tech")), LIMIT);
+
+        assertEquals(Set.of("product1"), wishlistStore.removeAll(customerId, List.of("product1", "product9")));
+        assertEquals(List.of("product2"), wishlistStore.findByCustomerId(customerId).stream().map(Wishlist::getProductId).toList());
+    }
+
+    @Test
+    void testFindByTagTokens_ReturnsItemShapedResults() {
+        wishlistStore.add(new Wishlist(customerId, "product1", "Eletrônicos Cozinha"), LIMIT);
+        wishlistStore.add(new Wishlist(customerId, "product2", "Jardim"), LIMIT);
+
+        List<Wishlist> found = wishlistStore.findByTagTokens(List.of("eletr", "coz"));
+
+        assertThat(found).extracting(Wishlist::getId).contains(Wishlist.generateCompositeId(customerId, "product1"));
+        assertThat(found).extracting(Wishlist::getProductId).doesNotContain("product2");
+
+        List<Wishlist> page = wishlistStore.findByTagTokensAfter(List.of("jard"), null, 100);
+        assertThat(page).extracting(Wishlist::getId).contains(Wishlist.generateCompositeId(customerId, "product2"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class WishlistChangeRecorderTest {
+
+    private WishlistStatsRepository stats;
+    private WishlistTagIndex tagIndex;
+    private WishlistChangeRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        stats = mock(WishlistStatsRepository.class);
+        tagIndex = mock(WishlistTagIndex.class);
+        recorder = new WishlistChangeRecorder(stats, tagIndex, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.close();
+    }
+
+    @Test
+    void testRecord_WritesOffTheCallerThread() {
+        Thread caller = Thread.currentThread();
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+        doAnswer(invocation -> {
+            assertTrue(Thread.currentThread() != caller);
+            return null;
+        }).when(stats).record(any(), anyInt());
+
+        recorder.record(List.of(wishlist), 1);
+        recorder.flush();
+
+        verify(stats).record(List.of(wishlist), 1);
+        verify(tagIndex).record(List.of(wishlist), 1);
+    }
+
+    @Test
+    void testRecord_MergesQueuedChangesInOrder() throws Exception {
+        Wishlist first = new Wishlist("customer1", "product1", "tech");
+        Wishlist second = new Wishlist("customer1", "product2", "tech");
+        Wishlist third = new Wishlist("customer2", "product1", "tech");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(stats).record(List.of(first), 1);
+
+        recorder.record(List.of(first), 1);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // Queued while the first change is being written.
+        recorder.record(List.of(second), 1);
+        recorder.record(List.of(third), 1);
+        recorder.record(List.of(first), -1);
+        release.countDown();
+        recorder.flush();
+
+        InOrder inOrder = inOrder(tagIndex);
+        inOrder.verify(tagIndex).record(List.of(first), 1);
+        inOrder.verify(tagIndex).record(List.of(second, third), 1);
+        inOrder.verify(tagIndex).record(List.of(first), -1);
+        verify(stats).record(List.of(second, third), 1);
+        verify(stats).record(List.of(first), -1);
+    }
+
+    @Test
+    void testRecord_SkipsEmptyChanges() {
+        recorder.record(List.of(), 1);
+        recorder.flush();
+
+        verifyNoInteractions(stats, tagIndex);
+    }
+}
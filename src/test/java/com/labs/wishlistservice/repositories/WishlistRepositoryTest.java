@@ -1,10 +1,15 @@
 package com.labs.wishlistservice.repositories;
 
+import com.labs.wishlistservice.domain.VersionedWishlists;
 import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistCounter;
+import com.labs.wishlistservice.infra.ReadRouting;
 import org.springframework.dao.DuplicateKeyException;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
@@ -12,10 +17,15 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataMongoTest
+@Import(ReadRouting.class)
 @ActiveProfiles("test")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class WishlistRepositoryTest {
@@ -23,6 +33,9 @@ class WishlistRepositoryTest {
     @Autowired
     private WishlistRepository wishlistRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     private Wishlist wishlist;
 
     @BeforeEach
@@ -58,9 +71,69 @@ class WishlistRepositoryTest {
     @Test
     @Order(2)
     void findByTagsCategory() {
-        List<Wishlist> found = wishlistRepository.findByTagsCategory("eletronicos");
+        List<Wishlist> found = wishlistRepository.findByTagTokens(List.of("eletronicos"));
+        assertFalse(found.isEmpty());
+        found = wishlistRepository.findByTagTokens(List.of("coz"));
         assertFalse(found.isEmpty());
-        found = wishlistRepository.findByTagsCategory("Cozinha");
+        found = wishlistRepository.findByTagTokens(List.of("eletr", "cozinha"));
         assertFalse(found.isEmpty());
+        assertTrue(wishlistRepository.findByTagTokens(List.of("xyz")).isEmpty());
+    }
+
+    @Test
+    @Order(4)
+    void testReleaseSlots_ClampsAtZero() {
+        String customerId = wishlist.getCustomerId();
+        assertEquals(2, wishlistRepository.reserveSlots(customerId, 2, 20));
+
+        wishlistRepository.releaseSlots(customerId, 5);
+        assertEquals(0, mongoTemplate.findById(customerId, WishlistCounter.class).getCount());
+
+        assertEquals(1, wishlistRepository.reserveSlots(customerId, 1, 20));
+        mongoTemplate.remove(mongoTemplate.findById(customerId, WishlistCounter.class));
+    }
+
+    @Test
+    @Order(5)
+    void testFindVersioned_OnlyWhenCounterMatchesItems() {
+        String customerId = wishlist.getCustomerId();
+        assertNull(wishlistRepository.findVersionedByCustomerId(customerId).version());
+
+        // Slot taken, item not inserted yet: the new version must not label the old list.
+        assertTrue(wishlistRepository.reserveSlot(customerId, 20));
+        String reserved = wishlistRepository.findVersion(customerId);
+        assertNotNull(reserved);
+        assertNull(wishlistRepository.findVersionedByCustomerId(customerId).version());
+
+        wishlistRepository.releaseSlot(customerId);
+        VersionedWishlists settled = wishlistRepository.findVersionedByCustomerId(customerId);
+        assertEquals(1, settled.wishlists().size());
+        assertNotNull(settled.version());
+        assertNotEquals(reserved, settled.version());
+        mongoTemplate.remove(mongoTemplate.findById(customerId, WishlistCounter.class));
+    }
+
+    @Test
+    @Order(6)
+    void testFindByTagTokensAfter_MatchesPrefixesLikeTheSearch() {
+        assertThat(wishlistRepository.findByTagTokensAfter(List.of("eletr", "coz"), null, 100))
+                .extracting(Wishlist::getId)
+                .contains(wishlist.getId());
+        assertThat(wishlistRepository.findByTagTokensAfter(List.of("coz"), wishlist.getId(), 100))
+                .extracting(Wishlist::getId)
+                .doesNotContain(wishlist.getId());
+    }
+
+    @Test
+    @Order(7)
+    void testReserveSlots_SeedsMissingCounterFromHeldItems() {
+        String customerId = wishlist.getCustomerId();
+        assertNull(mongoTemplate.findById(customerId, WishlistCounter.class));
+
+        // One item saved before the counter existed: only limit - 1 slots are left for the batch.
+        assertEquals(2, wishlistRepository.reserveSlots(customerId, 5, 3));
+        assertEquals(3, mongoTemplate.findById(customerId, WishlistCounter.class).getCount());
+        assertEquals(0, wishlistRepository.reserveSlots(customerId, 1, 3));
+        mongoTemplate.remove(mongoTemplate.findById(customerId, WishlistCounter.class));
     }
 }
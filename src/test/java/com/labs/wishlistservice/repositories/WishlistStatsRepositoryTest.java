@@ -0,0 +1,103 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.infra.ReadRouting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({WishlistStatsRepository.class, ReadRouting.class})
+class WishlistStatsRepositoryTest {
+
+    @Autowired
+    private WishlistStatsRepository statsRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String tag = "t" + UUID.randomUUID().toString().replace("-", "");
+    private final String otherTag = tag + "x";
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(tag, otherTag)), TagStats.class);
+        mongoTemplate.remove(Query.query(Criteria.where("tag").in(tag, otherTag)), TagProductStats.class);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(tag + "-product1", tag + "-product2")), ProductStats.class);
+    }
+
+    @Test
+    void testRecord_CountsItemsPerTagAndProduct() {
+        statsRepository.record(List.of(
+                new Wishlist("customer1", "product1", tag),
+                new Wishlist("customer2", "product1", tag + " " + otherTag),
+                new Wishlist("customer3", "product2", tag)), 1);
+
+        assertEquals(3, statsRepository.findByTag(tag).getCount());
+        assertEquals(1, statsRepository.findByTag(otherTag).getCount());
+        assertThat(statsRepository.findTopProducts(tag, 10))
+                .extracting(TagProductStats::getProductId, TagProductStats::getCount)
+                .containsExactly(tuple("product1", 2L), tuple("product2", 1L));
+    }
+
+    @Test
+    void testRecord_RemovedItemsLeaveTopLists() {
+        Wishlist removed = new Wishlist("customer1", "product1", otherTag);
+        statsRepository.record(List.of(new Wishlist("customer1", "product2", tag), removed), 1);
+        statsRepository.record(List.of(removed), -1);
+
+        assertEquals(0, statsRepository.findByTag(otherTag).getCount());
+        assertTrue(statsRepository.findTopProducts(otherTag, 10).isEmpty());
+        assertThat(statsRepository.findTopTags(1000))
+                .extracting(TagStats::getTag)
+                .contains(tag)
+                .doesNotContain(otherTag);
+    }
+
+    @Test
+    void testFindTop_MostUsedFirst() {
+        statsRepository.record(List.of(new Wishlist("customer1", "product1", otherTag)), 1);
+        statsRepository.record(List.of(
+                new Wishlist("customer1", "product2", tag),
+                new Wishlist("customer2", "product2", tag)), 1);
+
+        List<String> top = statsRepository.findTopTags(1000).stream()
+                .map(TagStats::getTag)
+                .filter(found -> found.equals(tag) || found.equals(otherTag))
+                .toList();
+        assertEquals(List.of(tag, otherTag), top);
+    }
+
+    @Test
+    void testFindTopProducts_CountsWishlistsPerProduct() {
+        String popular = tag + "-product1";
+        String other = tag + "-product2";
+        statsRepository.record(List.of(
+                new Wishlist("customer1", popular, tag),
+                new Wishlist("customer2", popular, null),
+                new Wishlist("customer3", other, tag)), 1);
+
+        List<String> top = statsRepository.findTopProducts(1000).stream()
+                .map(ProductStats::getProductId)
+                .filter(productId -> productId.equals(popular) || productId.equals(other))
+                .toList();
+        assertEquals(List.of(popular, other), top);
+    }
+}
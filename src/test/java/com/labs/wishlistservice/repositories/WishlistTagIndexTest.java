@@ -0,0 +1,113 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistTagEntry;
+import com.labs.wishlistservice.infra.ReadRouting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest(properties = "wishlist.sharding.enabled=true")
+@ActiveProfiles("test")
+@Import({WishlistTagIndex.class, ReadRouting.class})
+class WishlistTagIndexTest {
+
+    @Autowired
+    private WishlistTagIndex tagIndex;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String tag = "t" + UUID.randomUUID().toString().replace("-", "");
+    private final String customerId = UUID.randomUUID().toString();
+    private final Wishlist both = new Wishlist(customerId, "product1", tag + " " + tag + "x casa");
+    private final Wishlist first = new Wishlist(customerId, "product2", tag);
+    private final Wishlist other = new Wishlist(customerId, "product3", tag + "x");
+
+    @AfterEach
+    void tearDown() {
+        List<String> ids = Stream.of(both, first, other).map(Wishlist::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("wishlistId").in(ids)), WishlistTagEntry.class);
+    }
+
+    @Test
+    void testFindByTagTokens_ReturnsEachItemOnce() {
+        tagIndex.record(List.of(both, first, other), 1);
+
+        assertThat(tagIndex.findByTagTokens(List.of(tag)))
+                .extracting(Wishlist::getId)
+                .containsExactlyInAnyOrder(both.getId(), first.getId(), other.getId());
+        assertThat(tagIndex.findByTagTokens(List.of(tag + "x")))
+                .extracting(Wishlist::getId)
+                .containsExactlyInAnyOrder(both.getId(), other.getId());
+    }
+
+    @Test
+    void testFindByTagTokens_MatchesEveryToken() {
+        tagIndex.record(List.of(both, first, other), 1);
+
+        List<Wishlist> found = tagIndex.findByTagTokens(List.of("cas", tag));
+
+        assertEquals(1, found.size());
+        assertEquals(both.getId(), found.get(0).getId());
+        assertEquals(both.getTagsCategory(), found.get(0).getTagsCategory());
+    }
+
+    @Test
+    void testFindByTagTokensAfter_PagesInIndexOrder() {
+        tagIndex.record(List.of(both, first, other), 1);
+        // Entries under the token itself in id order, then the item found only under tag + "x".
+        List<String> expected = Stream.concat(
+                Stream.of(both, first).map(Wishlist::getId).sorted(),
+                Stream.of(other.getId())).toList();
+
+        assertThat(tagIndex.findByTagTokensAfter(List.of(tag), null, 10))
+                .extracting(Wishlist::getId)
+                .containsExactlyElementsOf(expected);
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        for (int i = 0; i < expected.size(); i++) {
+            List<Wishlist> page = tagIndex.findByTagTokensAfter(List.of(tag), cursor, 1);
+            assertEquals(1, page.size());
+            paged.add(page.get(0).getId());
+            cursor = tagIndex.pageCursor(List.of(tag), page.get(0));
+        }
+        assertEquals(expected, paged);
+        assertTrue(tagIndex.findByTagTokensAfter(List.of(tag), cursor, 1).isEmpty());
+    }
+
+    @Test
+    void testRecord_RemovesEntriesOfRemovedItems() {
+        tagIndex.record(List.of(both, first), 1);
+        tagIndex.record(List.of(both), -1);
+
+        assertThat(tagIndex.findByTagTokens(List.of(tag)))
+                .extracting(Wishlist::getId)
+                .containsExactly(first.getId());
+        assertEquals(0, mongoTemplate.count(Query.query(Criteria.where("wishlistId").is(both.getId())), WishlistTagEntry.class));
+    }
+
+    @Test
+    void testStreamByTagTokens() {
+        tagIndex.record(List.of(both, other), 1);
+
+        try (Stream<Wishlist> found = tagIndex.streamByTagTokens(List.of(tag + "x"))) {
+            assertEquals(2, found.count());
+        }
+    }
+}
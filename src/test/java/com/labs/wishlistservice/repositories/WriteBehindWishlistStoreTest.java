@@ -0,0 +1,203 @@
+package com.labs.wishlistservice.repositories;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindWishlistStoreTest {
+
+    private static final int LIMIT = 20;
+
+    private WishlistRepository wishlistRepository;
+    private WishlistChangeRecorder recorder;
+    private WriteBehindWishlistStore store;
+
+    @BeforeEach
+    void setUp() {
+        wishlistRepository = mock(WishlistRepository.class);
+        recorder = mock(WishlistChangeRecorder.class);
+        when(wishlistRepository.reserveSlot(anyString(), eq(LIMIT))).thenReturn(true);
+        when(wishlistRepository.insertUnordered(any())).thenReturn(Set.of());
+        store = new WriteBehindWishlistStore(new ItemWishlistStore(wishlistRepository, recorder, mock(WishlistTagIndex.class), WishlistKeyFormat.LEGACY),
+                wishlistRepository, Duration.ofHours(1), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void testAddThenRemove_CancelOutWithoutWriting() {
+        assertTrue(store.add(new Wishlist("customer1", "product1", "tech"), LIMIT));
+        assertTrue(store.remove("customer1", "product1"));
+
+        store.flush();
+
+        assertEquals(0, store.queued());
+        verify(wishlistRepository).releaseSlot("customer1");
+        verify(wishlistRepository, never()).insertUnordered(any());
+        verify(wishlistRepository, never()).removeByCustomerIdAndProductIdIn(anyString(), any());
+        verify(recorder, never()).record(any(), anyInt());
+    }
+
+    @Test
+    void testAdd_RejectsProductAlreadyQueued() {
+        store.add(new Wishlist("customer1", "product1", "tech"), LIMIT);
+
+        assertThrows(DuplicateKeyException.class, () -> store.add(new Wishlist("customer1", "product1", "tech"), LIMIT));
+        verify(wishlistRepository, times(1)).reserveSlot("customer1", LIMIT);
+    }
+
+    @Test
+    void testAdd_ReturnsFalseWhenNoSlotLeft() {
+        when(wishlistRepository.reserveSlot("customer1", LIMIT)).thenReturn(false);
+
+        assertFalse(store.add(new Wishlist("customer1", "product1", "tech"), LIMIT));
+        assertEquals(0, store.queued());
+    }
+
+    @Test
+    void testRemoveThenAdd_KeepsStoredItem() {
+        when(wishlistRepository.findByCustomerIdAndProductId("customer1", "product1"))
+                .thenReturn(new Wishlist("customer1", "product1", "tech"));
+
+        assertTrue(store.remove("customer1", "product1"));
+        assertTrue(store.add(new Wishlist("customer1", "product1", "tech"), LIMIT));
+        store.flush();
+
+        verify(wishlistRepository, never()).reserveSlot(anyString(), anyInt());
+        verify(wishlistRepository, never()).removeByCustomerIdAndProductIdIn(anyString(), any());
+    }
+
+    @Test
+    void testFlush_ReleasesSlotsOfRemovedAndDuplicateItems() {
+        Wishlist removed = new Wishlist("customer1", "product1", "tech");
+        Wishlist stored = new Wishlist("customer1", "product2", "tech");
+        when(wishlistRepository.findByCustomerIdAndProductId("customer1", "product1")).thenReturn(removed);
+        when(wishlistRepository.insertUnordered(List.of(stored))).thenReturn(Set.of(stored.getId()));
+        when(wishlistRepository.removeByCustomerIdAndProductIdIn("customer1", List.of("product1"))).thenReturn(1L);
+
+        store.remove("customer1", "product1");
+        store.add(stored, LIMIT);
+        store.flush();
+
+        verify(wishlistRepository, times(2)).releaseSlots("customer1", 1);
+        verify(recorder).record(List.of(), 1);
+        verify(recorder).record(List.of(removed), -1);
+    }
+
+    @Test
+    void testFindByCustomerId_FlushesQueuedChangesFirst() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+        store.add(wishlist, LIMIT);
+
+        store.findByCustomerId("customer1");
+
+        InOrder inOrder = inOrder(wishlistRepository);
+        inOrder.verify(wishlistRepository).insertUnordered(List.of(wishlist));
+        inOrder.verify(wishlistRepository).findByCustomerId("customer1");
+    }
+
+    @Test
+    void testFlush_RequeuesOnlyChangesNotWritten() {
+        Wishlist stored = new Wishlist("customer1", "product1", "tech");
+        when(wishlistRepository.findByCustomerIdAndProductId("customer2", "product2"))
+                .thenReturn(new Wishlist("customer2", "product2", "tech"));
+        when(wishlistRepository.removeByCustomerIdAndProductIdIn("customer2", List.of("product2")))
+                .thenThrow(new DataAccessResourceFailureException("timeout"))
+                .thenReturn(1L);
+
+        store.add(stored, LIMIT);
+        store.remove("customer2", "product2");
+        assertThrows(DataAccessResourceFailureException.class, store::flush);
+        assertEquals(1, store.queued());
+
+        store.flush();
+
+        verify(wishlistRepository, times(1)).insertUnordered(List.of(stored));
+        verify(wishlistRepository, times(2)).removeByCustomerIdAndProductIdIn("customer2", List.of("product2"));
+        verify(wishlistRepository).releaseSlots("customer2", 1);
+    }
+
+    @Test
+    void testAdd_FlushesFullQueueBeforeQueueing() {
+        store.add(new Wishlist("customer1", "product1", "tech"), LIMIT);
+        store.add(new Wishlist("customer1", "product2", "tech"), LIMIT);
+        store.add(new Wishlist("customer1", "product3", "tech"), LIMIT);
+        verify(wishlistRepository, never()).insertUnordered(any());
+
+        store.add(new Wishlist("customer1", "product4", "tech"), LIMIT);
+
+        verify(wishlistRepository).insertUnordered(argThat(wishlists -> wishlists.size() == 3));
+        assertEquals(1, store.queued());
+    }
+
+    @Test
+    void testAdd_FailsBeforeQueueingWhenFlushFails() {
+        when(wishlistRepository.insertUnordered(any())).thenThrow(new DataAccessResourceFailureException("down"));
+        store.add(new Wishlist("customer1", "product1", "tech"), LIMIT);
+        store.add(new Wishlist("customer1", "product2", "tech"), LIMIT);
+        store.add(new Wishlist("customer1", "product3", "tech"), LIMIT);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> store.add(new Wishlist("customer1", "product4", "tech"), LIMIT));
+        assertThrows(DataAccessResourceFailureException.class, () -> store.add(new Wishlist("customer1", "product5", "tech"), LIMIT));
+
+        assertEquals(3, store.queued());
+        verify(wishlistRepository, times(3)).reserveSlot("customer1", LIMIT);
+        doReturn(Set.of()).when(wishlistRepository).insertUnordered(any());
+    }
+
+    @Test
+    void testFlush_RequeuesOnlyAddsThatFailed() {
+        Wishlist stored = new Wishlist("customer1", "product1", "tech");
+        Wishlist failed = new Wishlist("customer1", "product2", "tech");
+        when(wishlistRepository.insertUnordered(argThat(wishlists -> wishlists.size() == 2))).thenAnswer(invocation -> {
+            List<Wishlist> batch = invocation.getArgument(0);
+            BulkWriteError error = new BulkWriteError(91, "shutting down", new BsonDocument(), batch.indexOf(failed));
+            throw new BulkOperationException("bulk write failed", new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                    List.of(error), null, new ServerAddress(), Set.of()));
+        });
+        // The retried add comes back as a duplicate, e.g. because the failed attempt did store it after all.
+        when(wishlistRepository.insertUnordered(List.of(failed))).thenReturn(Set.of(failed.getId()));
+
+        store.add(stored, LIMIT);
+        store.add(failed, LIMIT);
+        assertThrows(BulkOperationException.class, store::flush);
+        assertEquals(1, store.queued());
+        verify(recorder).record(List.of(stored), 1);
+
+        store.flush();
+
+        assertEquals(0, store.queued());
+        verify(wishlistRepository, never()).releaseSlots(anyString(), anyInt());
+        verify(recorder).record(List.of(failed), 1);
+    }
+
+    @Test
+    void testClose_FlushesQueuedChanges() {
+        store.add(new Wishlist("customer1", "product1", "tech"), LIMIT);
+
+        store.close();
+
+        verify(wishlistRepository).insertUnordered(argThat(wishlists -> wishlists.size() == 1));
+    }
+}
@@ -0,0 +1,151 @@
+package com.labs.wishlistservice.service;
+
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
+import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
+import com.labs.wishlistservice.repositories.ReactiveWishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class ReactiveWishlistServiceTest {
+
+    private ReactiveWishlistRepository wishlistRepository;
+    private WishlistStatsRepository stats;
+    private WishlistTagIndex tagIndex;
+    private ReactiveWishlistService wishlistService;
+
+    @BeforeEach
+    void setUp() {
+        wishlistRepository = mock(ReactiveWishlistRepository.class);
+        stats = mock(WishlistStatsRepository.class);
+        tagIndex = mock(WishlistTagIndex.class);
+        wishlistService = new ReactiveWishlistService(wishlistRepository, stats, tagIndex, "items", WishlistKeyFormat.LEGACY);
+    }
+
+    @Test
+    void testConstructor_RefusesEmbeddedLayout() {
+        assertThrows(IllegalStateException.class,
+                () -> new ReactiveWishlistService(wishlistRepository, stats, tagIndex, "embedded", WishlistKeyFormat.LEGACY));
+    }
+
+    @Test
+    void testSaveWishlist_Success() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(Mono.just(true));
+        when(wishlistRepository.insert(wishlist)).thenReturn(Mono.just(wishlist));
+
+        StepVerifier.create(wishlistService.save(wishlist))
+                .expectNext(wishlist)
+                .verifyComplete();
+        verify(stats).record(List.of(wishlist), 1);
+        verify(tagIndex).record(List.of(wishlist), 1);
+    }
+
+    @Test
+    void testSaveWishlist_UsesConfiguredKeyFormat() {
+        wishlistService = new ReactiveWishlistService(wishlistRepository, stats, tagIndex, "items", WishlistKeyFormat.COMPACT);
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(Mono.just(true));
+        when(wishlistRepository.insert(wishlist)).thenReturn(Mono.just(wishlist));
+
+        StepVerifier.create(wishlistService.save(wishlist))
+                .expectNext(wishlist)
+                .verifyComplete();
+        assertEquals(WishlistKeyFormat.COMPACT.id("customer1", "product1"), wishlist.getId());
+    }
+
+    @Test
+    void testSaveWishlist_Error_WhenLimitExceeded() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(wishlistService.save(wishlist))
+                .expectError(WishlistLimitExceededException.class)
+                .verify();
+        verify(wishlistRepository, never()).insert(any(Wishlist.class));
+    }
+
+    @Test
+    void testSaveWishlist_ReleasesSlot_WhenDuplicate() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(Mono.just(true));
+        when(wishlistRepository.insert(wishlist)).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+        when(wishlistRepository.releaseSlot("customer1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(wishlistService.save(wishlist))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+        verify(wishlistRepository).releaseSlot("customer1");
+        verifyNoInteractions(stats, tagIndex);
+    }
+
+    @Test
+    void testDeleteWishlist_RecordsRemovedItem() {
+        Wishlist removed = new Wishlist("customer1", "product1", "tech");
+        when(wishlistRepository.deleteByCustomerIdAndProductId("customer1", "product1")).thenReturn(Mono.just(removed));
+        when(wishlistRepository.releaseSlot("customer1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(wishlistService.delete("customer1", "product1"))
+                .verifyComplete();
+        verify(wishlistRepository).releaseSlot("customer1");
+        verify(stats).record(List.of(removed), -1);
+        verify(tagIndex).record(List.of(removed), -1);
+    }
+
+    @Test
+    void testDeleteWishlist_Error_WhenNotExists() {
+        when(wishlistRepository.deleteByCustomerIdAndProductId("customer1", "product1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(wishlistService.delete("customer1", "product1"))
+                .expectError(WishlistNotFoundException.class)
+                .verify();
+        verify(wishlistRepository, never()).releaseSlot(anyString());
+        verifyNoInteractions(stats, tagIndex);
+    }
+
+    @Test
+    void testFindAllCustomer_Success() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+        when(wishlistRepository.findByCustomerId("customer1")).thenReturn(Flux.just(wishlist));
+
+        StepVerifier.create(wishlistService.findAllCustomer("customer1"))
+                .expectNext(List.of(wishlist))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindAllCustomer_Error_WhenNotFound() {
+        when(wishlistRepository.findByCustomerId("customer1")).thenReturn(Flux.empty());
+
+        StepVerifier.create(wishlistService.findAllCustomer("customer1"))
+                .expectError(WishlistNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testFindByTagsCategory_QueriesTokens() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "Tech");
+        when(wishlistRepository.findByTagTokens(List.of("tech"))).thenReturn(Flux.just(wishlist));
+
+        StepVerifier.create(wishlistService.findByTagsCategory("TECH"))
+                .expectNext(List.of(wishlist))
+                .verifyComplete();
+    }
+}
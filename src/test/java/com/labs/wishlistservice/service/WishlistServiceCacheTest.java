@@ -0,0 +1,221 @@
+package com.labs.wishlistservice.service;
+
+import com.labs.wishlistservice.domain.VersionedWishlists;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.infra.CacheConfig;
+import com.labs.wishlistservice.repositories.ItemWishlistStore;
+import com.labs.wishlistservice.repositories.WishlistChangeRecorder;
+import com.labs.wishlistservice.repositories.WishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(WishlistServiceCacheTest.TestConfig.class)
+class WishlistServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfig.class, WishlistService.class, ItemWishlistStore.class})
+    static class TestConfig {
+        @Bean
+        public WishlistRepository wishlistRepository() {
+            return Mockito.mock(WishlistRepository.class);
+        }
+
+        @Bean
+        public WishlistStatsRepository statsRepository() {
+            return Mockito.mock(WishlistStatsRepository.class);
+        }
+
+        @Bean
+        public WishlistChangeRecorder recorder() {
+            return Mockito.mock(WishlistChangeRecorder.class);
+        }
+
+        @Bean
+        public WishlistTagIndex tagIndex() {
+            return Mockito.mock(WishlistTagIndex.class);
+        }
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.CUSTOMER_WISHLISTS, CacheConfig.MISSING_CUSTOMERS, CacheConfig.MISSING_TAGS,
+                    CacheConfig.TOP_PRODUCTS);
+        }
+
+        @Bean
+        public static ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+    }
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private WishlistStatsRepository statsRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(wishlistRepository, statsRepository);
+        cacheManager.getCache(CacheConfig.CUSTOMER_WISHLISTS).clear();
+        cacheManager.getCache(CacheConfig.MISSING_CUSTOMERS).clear();
+        cacheManager.getCache(CacheConfig.MISSING_TAGS).clear();
+        cacheManager.getCache(CacheConfig.TOP_PRODUCTS).clear();
+        when(wishlistRepository.findVersionedByCustomerId("customer1"))
+                .thenReturn(new VersionedWishlists("v1", List.of(new Wishlist("customer1", "product1", "tech"))));
+    }
+
+    @Test
+    void testFindAllCustomer_RepeatReadsServedFromCache() {
+        wishlistService.findAllCustomer("customer1");
+        wishlistService.findAllCustomer("customer1");
+
+        verify(wishlistRepository, times(1)).findVersionedByCustomerId("customer1");
+    }
+
+    @Test
+    void testSave_EvictsCustomerEntry() {
+        Wishlist wishlist = new Wishlist("customer1", "product2", "tech");
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
+
+        wishlistService.findAllCustomer("customer1");
+        wishlistService.save(wishlist);
+        wishlistService.findAllCustomer("customer1");
+
+        verify(wishlistRepository, times(2)).findVersionedByCustomerId("customer1");
+    }
+
+    @Test
+    void testDelete_EvictsCustomerEntry() {
+        when(wishlistRepository.deleteByCustomerIdAndProductId("customer1", "product1"))
+                .thenReturn(new Wishlist("customer1", "product1", "tech"));
+
+        wishlistService.findAllCustomer("customer1");
+        wishlistService.delete("customer1", "product1");
+        wishlistService.findAllCustomer("customer1");
+
+        verify(wishlistRepository, times(2)).findVersionedByCustomerId("customer1");
+    }
+
+    @Test
+    void testFindAllCustomer_ListReadBeforeSaveIsNotServedAfterIt() {
+        Wishlist wishlist = new Wishlist("customer1", "product2", "tech");
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
+        when(wishlistRepository.findVersion("customer1")).thenReturn("v1");
+        // The save lands between the read of the list and the cache put, so its eviction comes too early.
+        when(wishlistRepository.findVersionedByCustomerId("customer1")).thenAnswer(invocation -> {
+            wishlistService.save(wishlist);
+            when(wishlistRepository.findVersion("customer1")).thenReturn("v2");
+            return new VersionedWishlists("v1", List.of(new Wishlist("customer1", "product1", "tech")));
+        }).thenReturn(new VersionedWishlists("v2", List.of(new Wishlist("customer1", "product1", "tech"), wishlist)));
+
+        wishlistService.findAllCustomer("customer1");
+        VersionedWishlists found = wishlistService.findAllCustomer("customer1");
+
+        assertEquals("v2", found.version());
+        assertEquals(2, found.wishlists().size());
+        verify(wishlistRepository, times(2)).findVersionedByCustomerId("customer1");
+    }
+
+    @Test
+    void testFindAllCustomer_OtherCustomersNotEvicted() {
+        Wishlist wishlist = new Wishlist("customer2", "product1", "tech");
+        when(wishlistRepository.reserveSlot("customer2", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
+
+        wishlistService.findAllCustomer("customer1");
+        wishlistService.save(wishlist);
+        List<Wishlist> result = wishlistService.findAllCustomer("customer1").wishlists();
+
+        assertEquals(1, result.size());
+        verify(wishlistRepository, times(1)).findVersionedByCustomerId("customer1");
+    }
+
+    @Test
+    void testFindAllCustomer_CachesVersionWithList() {
+        when(wishlistRepository.findVersion("customer1")).thenReturn("v2");
+
+        wishlistService.findAllCustomer("customer1");
+
+        assertEquals("v1", wishlistService.findAllCustomer("customer1").version());
+        assertEquals("v2", wishlistService.findVersion("customer1"));
+    }
+
+    @Test
+    void testFindAllCustomer_EmptyResultIsCachedApart() {
+        when(wishlistRepository.findVersionedByCustomerId("customer3")).thenReturn(new VersionedWishlists(null, List.of()));
+
+        wishlistService.findAllCustomer("customer3");
+        wishlistService.findAllCustomer("customer3");
+
+        verify(wishlistRepository, times(1)).findVersionedByCustomerId("customer3");
+        assertNull(cacheManager.getCache(CacheConfig.CUSTOMER_WISHLISTS).get("customer3"));
+        assertNotNull(cacheManager.getCache(CacheConfig.MISSING_CUSTOMERS).get("customer3"));
+    }
+
+    @Test
+    void testSave_EvictsCachedMiss() {
+        Wishlist wishlist = new Wishlist("customer3", "product1", "tech");
+        when(wishlistRepository.findVersionedByCustomerId("customer3")).thenReturn(new VersionedWishlists(null, List.of()));
+        when(wishlistRepository.reserveSlot("customer3", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
+
+        wishlistService.findAllCustomer("customer3");
+        wishlistService.save(wishlist);
+        wishlistService.findAllCustomer("customer3");
+
+        verify(wishlistRepository, times(2)).findVersionedByCustomerId("customer3");
+    }
+
+    @Test
+    void testFindByTagsCategory_MissIsCachedUntilNextSave() {
+        Wishlist wishlist = new Wishlist("customer1", "product2", "Casa");
+        when(wishlistRepository.findByTagTokens(List.of("casa"))).thenReturn(List.of());
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
+
+        wishlistService.findByTagsCategory("Casa");
+        wishlistService.findByTagsCategory("CASA");
+        verify(wishlistRepository, times(1)).findByTagTokens(List.of("casa"));
+
+        wishlistService.save(wishlist);
+        wishlistService.findByTagsCategory("casa");
+        verify(wishlistRepository, times(2)).findByTagTokens(List.of("casa"));
+    }
+
+    @Test
+    void testFindMostWishlisted_RepeatReadsServedFromCache() {
+        wishlistService.findMostWishlisted(null, 10);
+        wishlistService.findMostWishlisted(null, 10);
+        wishlistService.findMostWishlisted(null, 20);
+
+        verify(statsRepository, times(1)).findTopProducts(10);
+        verify(statsRepository, times(1)).findTopProducts(20);
+    }
+}
@@ -0,0 +1,234 @@
+package com.labs.wishlistservice.service;
+
+import com.labs.wishlistservice.domain.CustomerWishlist;
+import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
+import com.labs.wishlistservice.infra.ReadRouting;
+import com.labs.wishlistservice.repositories.EmbeddedWishlistStore;
+import com.labs.wishlistservice.repositories.ItemWishlistStore;
+import com.labs.wishlistservice.repositories.WishlistChangeRecorder;
+import com.labs.wishlistservice.repositories.WishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({WishlistService.class, ItemWishlistStore.class, WishlistChangeRecorder.class, WishlistStatsRepository.class, WishlistTagIndex.class, ReadRouting.class})
+class WishlistServiceConcurrencyTest {
+
+    private static final int PARALLEL_SAVES = 300;
+    private static final int HELD_ITEMS = 5;
+    private static final int FIRST_SAVES = 15;
+    private static final int TIMED_SAVES = 200;
+    private static final int NO_LIMIT = 1000;
+
+    /**
+     * Counts the commands sent from one thread, which are the round trips a request waits for.
+     */
+    static class RoundTrips implements CommandListener {
+
+        private volatile Thread thread;
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (Thread.currentThread() == thread) {
+                count.incrementAndGet();
+            }
+        }
+
+        int during(Runnable save) {
+            thread = Thread.currentThread();
+            count.set(0);
+            save.run();
+            thread = null;
+            return count.get();
+        }
+    }
+
+    @TestConfiguration
+    static class RoundTripsConfig {
+        @Bean
+        RoundTrips roundTrips() {
+            return new RoundTrips();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer roundTripsListener(RoundTrips roundTrips) {
+            return settings -> settings.addCommandListener(roundTrips);
+        }
+    }
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private ItemWishlistStore itemStore;
+
+    @Autowired
+    private WishlistChangeRecorder recorder;
+
+    @Autowired
+    private WishlistTagIndex tagIndex;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RoundTrips roundTrips;
+
+    private final String customerId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void tearDown() {
+        wishlistRepository.findByCustomerId(customerId)
+                .forEach(wishlist -> wishlistService.delete(customerId, wishlist.getProductId()));
+    }
+
+    @Test
+    void testParallelSaves_NeverExceedLimit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < PARALLEL_SAVES; i++) {
+            String productId = "product-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    wishlistService.save(new Wishlist(customerId, productId, "tech"));
+                } catch (WishlistLimitExceededException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(20, wishlistRepository.findByCustomerId(customerId).size());
+        assertEquals(PARALLEL_SAVES - 20, rejected.get());
+    }
+
+    @Test
+    void testParallelFirstSaves_SeedMissingCounterFromHeldItems() throws Exception {
+        // Items saved before the counter existed.
+        for (int i = 0; i < HELD_ITEMS; i++) {
+            wishlistRepository.insert(new Wishlist(customerId, "held-" + i, "tech"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(FIRST_SAVES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < FIRST_SAVES; i++) {
+            String productId = "product-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                wishlistService.save(new Wishlist(customerId, productId, "tech"));
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            // None of the racing first saves may be rejected: HELD_ITEMS + FIRST_SAVES is below the limit.
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThrows(WishlistLimitExceededException.class,
+                () -> wishlistService.save(new Wishlist(customerId, "product-over", "tech")));
+        assertEquals(20, wishlistRepository.findByCustomerId(customerId).size());
+    }
+
+    /**
+     * Compares one save on each write path with the count-then-insert it replaced, by the round trips the caller waits
+     * for and the median latency. The stats and tag index writes of a save must not be among those round trips.
+     */
+    @Test
+    void testSaveLatency_AgainstCountThenInsert() {
+        String baselineCustomer = UUID.randomUUID().toString();
+        String embeddedCustomer = UUID.randomUUID().toString();
+        EmbeddedWishlistStore embeddedStore = new EmbeddedWishlistStore(mongoTemplate, readRouting, recorder, tagIndex, WishlistKeyFormat.LEGACY);
+        try {
+            Query held = Query.query(Criteria.where("customerId").is(baselineCustomer));
+            IntConsumer countThenInsert = i -> {
+                if (mongoTemplate.count(held, Wishlist.class) < NO_LIMIT)
+                    wishlistRepository.insert(new Wishlist(baselineCustomer, "product-" + i, "tech"));
+            };
+            IntConsumer itemsAdd = i -> itemStore.add(new Wishlist(customerId, "product-" + i, "tech"), NO_LIMIT);
+            IntConsumer embeddedAdd = i -> embeddedStore.add(new Wishlist(embeddedCustomer, "product-" + i, "tech"), NO_LIMIT);
+
+            long[] baseline = timeSaves(countThenInsert);
+            long[] items = timeSaves(itemsAdd);
+            long[] embedded = timeSaves(embeddedAdd);
+
+            assertEquals(2, roundTrips.during(() -> countThenInsert.accept(TIMED_SAVES)));
+            // The counter is checked and moved in the round trip the count used to take.
+            assertEquals(2, roundTrips.during(() -> itemsAdd.accept(TIMED_SAVES)));
+            assertEquals(1, roundTrips.during(() -> embeddedAdd.accept(TIMED_SAVES)));
+            assertTrue(median(embedded) < median(baseline),
+                    String.format("median save: count+insert %dus, items %dus, embedded %dus", median(baseline), median(items), median(embedded)));
+        } finally {
+            recorder.flush();
+            wishlistRepository.findByCustomerId(baselineCustomer).forEach(wishlist -> wishlistRepository.deleteById(wishlist.getId()));
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(embeddedCustomer)), CustomerWishlist.class);
+        }
+    }
+
+    private static long[] timeSaves(IntConsumer save) {
+        // Warm up the pool and the indexes of the customer first.
+        for (int i = 0; i < 10; i++) {
+            save.accept(-1 - i);
+        }
+        long[] micros = new long[TIMED_SAVES];
+        for (int i = 0; i < TIMED_SAVES; i++) {
+            long start = System.nanoTime();
+            save.accept(i);
+            micros[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        }
+        return micros;
+    }
+
+    private static long median(long[] micros) {
+        long[] sorted = micros.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
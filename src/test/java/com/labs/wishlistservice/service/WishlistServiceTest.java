@@ -1,14 +1,31 @@
 package com.labs.wishlistservice.service;
 
 
+import com.labs.wishlistservice.domain.ProductStats;
+import com.labs.wishlistservice.domain.TagProductStats;
+import com.labs.wishlistservice.domain.TagStats;
+import com.labs.wishlistservice.domain.VersionedWishlists;
 import com.labs.wishlistservice.domain.Wishlist;
+import com.labs.wishlistservice.domain.WishlistBatchResult;
+import com.labs.wishlistservice.domain.WishlistBatchResult.Status;
+import com.labs.wishlistservice.domain.WishlistKeyFormat;
+import com.labs.wishlistservice.domain.WishlistPage;
 import com.labs.wishlistservice.exceptions.WishlistLimitExceededException;
 import com.labs.wishlistservice.exceptions.WishlistNotFoundException;
+import com.labs.wishlistservice.repositories.ItemWishlistStore;
+import com.labs.wishlistservice.repositories.WishlistChangeRecorder;
 import com.labs.wishlistservice.repositories.WishlistRepository;
+import com.labs.wishlistservice.repositories.WishlistStatsRepository;
+import com.labs.wishlistservice.repositories.WishlistTagIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -16,54 +33,101 @@ import static org.mockito.Mockito.*;
 class WishlistServiceTest {
 
     private WishlistRepository wishlistRepository;
+    private WishlistStatsRepository statsRepository;
+    private WishlistChangeRecorder recorder;
+    private WishlistTagIndex tagIndex;
     private WishlistService wishlistService;
 
     @BeforeEach
     void setUp() {
         wishlistRepository = mock(WishlistRepository.class);
-        wishlistService = new WishlistService(wishlistRepository);
+        statsRepository = mock(WishlistStatsRepository.class);
+        recorder = mock(WishlistChangeRecorder.class);
+        tagIndex = mock(WishlistTagIndex.class);
+        wishlistService = new WishlistService(new ItemWishlistStore(wishlistRepository, recorder, tagIndex, WishlistKeyFormat.LEGACY), statsRepository, new NoOpCacheManager());
     }
 
     @Test
     void testSaveWishlist_Success() {
         Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
 
-        when(wishlistRepository.countByCustomerId("customer1")).thenReturn(0L);
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
         when(wishlistRepository.insert(wishlist)).thenReturn(wishlist);
 
         Wishlist saved = wishlistService.save(wishlist);
 
         assertNotNull(saved);
-        verify(wishlistRepository).insert(wishlist);
+        InOrder inOrder = inOrder(wishlistRepository);
+        inOrder.verify(wishlistRepository).reserveSlot("customer1", 20);
+        inOrder.verify(wishlistRepository).insert(wishlist);
+        verify(recorder).record(List.of(wishlist), 1);
     }
 
     @Test
     void testSaveWishlist_ThrowsException_WhenLimitExceeded() {
         Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
 
-        when(wishlistRepository.countByCustomerId("customer1")).thenReturn(20L);
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(false);
 
         assertThrows(WishlistLimitExceededException.class, () -> wishlistService.save(wishlist));
         verify(wishlistRepository, never()).insert((Wishlist) any());
     }
 
+    @Test
+    void testSaveWishlist_ReleasesSlot_WhenDuplicate() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenThrow(new DuplicateKeyException("duplicate"));
+
+        assertThrows(DuplicateKeyException.class, () -> wishlistService.save(wishlist));
+        verify(wishlistRepository).releaseSlot("customer1");
+        verify(recorder, never()).record(any(), anyInt());
+    }
+
+    @Test
+    void testSaveWishlist_KeepsSlot_WhenInsertOutcomeUnknown() {
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+        when(wishlistRepository.insert(wishlist)).thenThrow(new DataAccessResourceFailureException("timeout"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> wishlistService.save(wishlist));
+        verify(wishlistRepository, never()).releaseSlot(anyString());
+        verify(recorder, never()).record(any(), anyInt());
+    }
+
+    @Test
+    void testSaveWishlist_UsesConfiguredKeyFormat() {
+        WishlistService compactService = new WishlistService(new ItemWishlistStore(wishlistRepository, recorder, tagIndex, WishlistKeyFormat.COMPACT), statsRepository, new NoOpCacheManager());
+        Wishlist wishlist = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlot("customer1", 20)).thenReturn(true);
+
+        compactService.save(wishlist);
+
+        assertEquals("9:customer1product1", wishlist.getId());
+        verify(wishlistRepository).insert(wishlist);
+    }
+
     @Test
     void testDeleteWishlist_Success() {
-        String id = "wishlist123";
-        when(wishlistRepository.existsById(id)).thenReturn(true);
+        Wishlist removed = new Wishlist("customer1", "product1", "tech");
+        when(wishlistRepository.deleteByCustomerIdAndProductId("customer1", "product1")).thenReturn(removed);
 
-        wishlistService.delete(id);
+        wishlistService.delete("customer1", "product1");
 
-        verify(wishlistRepository).deleteById(id);
+        verify(wishlistRepository).deleteByCustomerIdAndProductId("customer1", "product1");
+        verify(wishlistRepository).releaseSlot("customer1");
+        verify(recorder).record(List.of(removed), -1);
     }
 
     @Test
     void testDeleteWishlist_ThrowsException_WhenNotExists() {
-        String id = "wishlist123";
-        when(wishlistRepository.existsById(id)).thenReturn(false);
+        when(wishlistRepository.deleteByCustomerIdAndProductId("customer1", "product1")).thenReturn(null);
 
-        assertThrows(WishlistNotFoundException.class, () -> wishlistService.delete(id));
-        verify(wishlistRepository, never()).deleteById(id);
+        assertThrows(WishlistNotFoundException.class, () -> wishlistService.delete("customer1", "product1"));
+        verify(wishlistRepository, never()).releaseSlot(anyString());
     }
 
     @Test
@@ -71,21 +135,22 @@ class WishlistServiceTest {
         String customerId = "customer1";
         List<Wishlist> mockList = List.of(new Wishlist(customerId, "product1", "tech"));
 
-        when(wishlistRepository.existsByCustomerId(customerId)).thenReturn(true);
-        when(wishlistRepository.findByCustomerId(customerId)).thenReturn(mockList);
+        when(wishlistRepository.findVersionedByCustomerId(customerId)).thenReturn(new VersionedWishlists("v1", mockList));
 
-        List<Wishlist> result = wishlistService.findAllCustomer(customerId);
+        VersionedWishlists result = wishlistService.findAllCustomer(customerId);
 
-        assertEquals(1, result.size());
+        assertEquals(1, result.wishlists().size());
+        assertEquals("v1", result.version());
     }
 
     @Test
-    void testFindAllCustomer_ThrowsException_WhenNotFound() {
+    void testFindAllCustomer_ReturnsEmpty_WhenNotFound() {
         String customerId = "customer1";
 
-        when(wishlistRepository.existsByCustomerId(customerId)).thenReturn(false);
+        when(wishlistRepository.findVersionedByCustomerId(customerId)).thenReturn(new VersionedWishlists(null, List.of()));
 
-        assertThrows(WishlistNotFoundException.class, () -> wishlistService.findAllCustomer(customerId));
+        assertTrue(wishlistService.findAllCustomer(customerId).wishlists().isEmpty());
+        verify(wishlistRepository, times(1)).findVersionedByCustomerId(customerId);
     }
 
     @Test
@@ -100,13 +165,12 @@ class WishlistServiceTest {
 
     @Test
     void testFindByTagsCategory() {
-        String tag = "tech";
-        String regex = ".*" + Pattern.quote(tag) + ".*";
+        String tag = "Tech";
+        List<String> tokens = List.of("tech");
 
         List<Wishlist> mockList = List.of(new Wishlist("customer1", "product1", tag));
 
-        when(wishlistRepository.existsByTagsCategory(regex)).thenReturn(true);
-        when(wishlistRepository.findByTagsCategory(regex)).thenReturn(mockList);
+        when(wishlistRepository.findByTagTokens(tokens)).thenReturn(mockList);
 
         List<Wishlist> result = wishlistService.findByTagsCategory(tag);
 
@@ -116,11 +180,146 @@ class WishlistServiceTest {
 
 
     @Test
-    void testFindByTagsCategory_ThrowsException_WhenNotFound() {
+    void testFindByTagsCategory_ServedByTagIndex_WhenEnabled() {
+        List<Wishlist> indexed = List.of(new Wishlist("customer1", "product1", "tech"));
+        when(tagIndex.isEnabled()).thenReturn(true);
+        when(tagIndex.findByTagTokens(List.of("tech"))).thenReturn(indexed);
+
+        assertEquals(indexed, wishlistService.findByTagsCategory("Tech"));
+        verify(wishlistRepository, never()).findByTagTokens(any());
+    }
+
+    @Test
+    void testFindByTagsCategory_ReturnsEmpty_WhenNotFound() {
         String tag = "tech";
 
-        when(wishlistRepository.existsByTagsCategory(tag)).thenReturn(false);
+        when(wishlistRepository.findByTagTokens(List.of(tag))).thenReturn(List.of());
+
+        assertTrue(wishlistService.findByTagsCategory(tag).isEmpty());
+    }
+
+    @Test
+    void testFindByTagsCategory_ReturnsEmpty_WhenTagHasNoTokens() {
+        assertTrue(wishlistService.findByTagsCategory(" - ").isEmpty());
+        verify(wishlistRepository, never()).findByTagTokens(any());
+    }
+
+    @Test
+    void testFindByTagsCategoryPage_ReturnsNextCursor_WhenMoreResults() {
+        List<Wishlist> found = List.of(
+                new Wishlist("customer1", "product1", "tech"),
+                new Wishlist("customer2", "product1", "tech"),
+                new Wishlist("customer3", "product1", "tech"));
+
+        when(wishlistRepository.findByTagTokensAfter(List.of("tech"), null, 3)).thenReturn(found);
 
-        assertThrows(WishlistNotFoundException.class, () -> wishlistService.findByTagsCategory(tag));
+        WishlistPage page = wishlistService.findByTagsCategoryPage("tech", null, 2);
+
+        assertEquals(2, page.wishlists().size());
+        assertEquals(found.get(1).getId(), page.next());
+    }
+
+    @Test
+    void testFindByTagsCategoryPage_CapsPageSize() {
+        when(wishlistRepository.findByTagTokensAfter(List.of("tech"), "cursor", 101)).thenReturn(List.of());
+
+        WishlistPage page = wishlistService.findByTagsCategoryPage("tech", "cursor", 10_000);
+
+        assertTrue(page.wishlists().isEmpty());
+        assertNull(page.next());
+        verify(wishlistRepository).findByTagTokensAfter(List.of("tech"), "cursor", 101);
+    }
+
+    @Test
+    void testSaveAll_ReportsAddedDuplicateAndLimitPerItem() {
+        Wishlist first = new Wishlist("customer1", "product1", "tech");
+        Wishlist existing = new Wishlist("customer1", "product2", "tech");
+        Wishlist overLimit = new Wishlist("customer1", "product3", "tech");
+        Wishlist repeated = new Wishlist("customer1", "product1", "tech");
+
+        when(wishlistRepository.reserveSlots("customer1", 3, 20)).thenReturn(2);
+        when(wishlistRepository.insertUnordered(List.of(first, existing))).thenReturn(Set.of(existing.getId()));
+
+        List<WishlistBatchResult> results = wishlistService.saveAll("customer1", List.of(first, existing, overLimit, repeated));
+
+        assertEquals(List.of(
+                new WishlistBatchResult("product1", Status.ADDED),
+                new WishlistBatchResult("product2", Status.DUPLICATE),
+                new WishlistBatchResult("product3", Status.LIMIT_EXCEEDED),
+                new WishlistBatchResult("product1", Status.DUPLICATE)), results);
+        verify(wishlistRepository).releaseSlots("customer1", 1);
+        verify(recorder).record(List.of(first), 1);
+    }
+
+    @Test
+    void testDeleteAll_ReportsRemovedAndNotFoundPerItem() {
+        List<Wishlist> existing = List.of(new Wishlist("customer1", "product1", "tech"));
+        when(wishlistRepository.findByCustomerIdAndProductIdIn(eq("customer1"), any())).thenReturn(existing);
+        when(wishlistRepository.removeByCustomerIdAndProductIdIn("customer1", Set.of("product1"))).thenReturn(1L);
+
+        List<WishlistBatchResult> results = wishlistService.deleteAll("customer1", List.of("product1", "product2"));
+
+        assertEquals(List.of(
+                new WishlistBatchResult("product1", Status.REMOVED),
+                new WishlistBatchResult("product2", Status.NOT_FOUND)), results);
+        verify(wishlistRepository).releaseSlots("customer1", 1);
+        verify(recorder).record(existing, -1);
+    }
+
+    @Test
+    void testFindExistingProductIds_SingleInQuery() {
+        when(wishlistRepository.findExistingProductIds(eq("customer1"), any()))
+                .thenReturn(List.of("product2"));
+
+        List<String> result = wishlistService.findExistingProductIds("customer1", List.of("product1", "product2", "product3"));
+
+        assertEquals(List.of("product2"), result);
+        verify(wishlistRepository, times(1)).findExistingProductIds(eq("customer1"), any());
+    }
+
+    @Test
+    void testFindTopTags_CapsLimit() {
+        wishlistService.findTopTags(10_000);
+
+        verify(statsRepository).findTopTags(100);
+    }
+
+    @Test
+    void testFindTagStats_LooksUpNormalizedToken() {
+        TagStats stats = new TagStats();
+        stats.setTag("eletronicos");
+        stats.setCount(3);
+        when(statsRepository.findByTag("eletronicos")).thenReturn(stats);
+
+        assertSame(stats, wishlistService.findTagStats("Eletrônicos"));
+    }
+
+    @Test
+    void testFindTagStats_ReturnsNull_WhenTagIsNotOneWord() {
+        assertNull(wishlistService.findTagStats("eletronicos cozinha"));
+        verify(statsRepository, never()).findByTag(anyString());
+    }
+
+    @Test
+    void testFindMostWishlisted_Overall() {
+        List<ProductStats> top = List.of(new ProductStats("product1", 5));
+        when(statsRepository.findTopProducts(10)).thenReturn(top);
+
+        assertEquals(top, wishlistService.findMostWishlisted(null, 10));
+    }
+
+    @Test
+    void testFindMostWishlisted_PerTag() {
+        TagProductStats stats = new TagProductStats();
+        stats.setTag("tech");
+        stats.setProductId("product1");
+        stats.setCount(3);
+        when(statsRepository.findTopProducts("tech", 100)).thenReturn(List.of(stats));
+
+        List<ProductStats> top = wishlistService.findMostWishlisted("Tech", 500);
+
+        assertEquals(1, top.size());
+        assertEquals("product1", top.get(0).getProductId());
+        assertEquals(3, top.get(0).getCount());
     }
 }